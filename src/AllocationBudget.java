@@ -0,0 +1,174 @@
+package src;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+// Allocation regression check for the scanners and their helpers. Each case runs over a fixed
+// corpus (the test programs repeated to CORPUS_SIZE chars) and the bytes allocated by the
+// measuring thread are compared with a budget per input char and per token. A change that
+// adds e.g. a StringBuilder per token blows the budget and the run exits with status 1.
+// Budgets are roughly 1.5x what the code allocated when they were set. System.err is discarded
+// while a case runs (Yylex prints every illegal character there), so console output is neither
+// printed nor counted.
+//
+// Usage: java src.AllocationBudget [corpus-directory]
+public class AllocationBudget {
+    private static final int CORPUS_SIZE = 1 << 20;
+    private static final int RUNS = 3; // the lowest of these counts, after a warm-up run
+
+    private interface Case {
+        long run(String corpus) throws IOException; // returns the number of tokens (or items) processed
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static List<Token> identifiers; // input for the SymbolTable case
+
+    public static void main(String[] args) throws IOException {
+        String corpus = buildCorpus(Paths.get((args.length > 0) ? args[0] : "tests"));
+        identifiers = new ArrayList<>();
+        try (ManualScanner scanner = new ManualScanner(new StringReader(corpus))) {
+            for (Token t : scanner.scan()) {
+                if (t.getType() == TokenType.IDENTIFIER) identifiers.add(t);
+            }
+        }
+
+        System.out.printf("Corpus: %d chars%n%n", corpus.length());
+        System.out.printf("%-28s %10s %10s %12s %12s  %s%n", "Case", "B/char", "budget", "B/token", "budget", "Result");
+        boolean allPassed = true;
+        // name, budget per input char, budget per token (validate stops early, so only per char), case
+        allPassed &= check("ManualScanner.scan", 10.0, 150.0, corpus, c -> {
+            try (ManualScanner s = new ManualScanner(new StringReader(c))) {
+                return s.scan().size();
+            }
+        });
+        allPassed &= check("ManualScanner identifiers", 3.0, 240.0, corpus, c -> {
+            try (ManualScanner s = new ManualScanner(new StringReader(c))) {
+                return s.scan(EnumSet.of(TokenType.IDENTIFIER)).size();
+            }
+        });
+        allPassed &= check("ManualScanner.countTokens", 0.5, 8.0, corpus, c -> {
+            try (ManualScanner s = new ManualScanner(new StringReader(c))) {
+                return sum(s.countTokens().values());
+            }
+        });
+        allPassed &= check("ManualScanner.validate", 0.25, Double.MAX_VALUE, corpus, c -> {
+            try (ManualScanner s = new ManualScanner(new StringReader(c))) {
+                s.validate();
+                return sum(s.getTypeCounts().values());
+            }
+        });
+        allPassed &= check("GeneratedScanner", 10.0, 150.0, corpus, c -> {
+            try (GeneratedScanner scanner = new GeneratedScanner(new StringReader(c), GeneratedScanner.defaultDfa())) {
+                long n = 0;
+                while (scanner.nextToken() != null) n++;
+                return n;
+            }
+        });
+        allPassed &= check("Yylex", 19.0, 215.0, corpus, c -> {
+            try (Reader in = new StringReader(c)) {
+                Yylex lexer = new Yylex(in);
+                long n = 0;
+                while (lexer.yylex() != null) n++;
+                return n;
+            }
+        });
+        allPassed &= check("YylexInt (int codes)", 0.8, 9.0, corpus, c -> {
+            try (YylexInt lexer = new YylexInt(new StringReader(c))) {
+                long n = 0;
+                while (lexer.yylex() != YylexInt.YYEOF) n++;
+                return n;
+            }
+        });
+        allPassed &= check("SymbolTable.add", Double.MAX_VALUE, 1.0, corpus, c -> {
+            SymbolTable table = new SymbolTable();
+            for (Token t : identifiers) table.add(t.getLexeme(), "IDENTIFIER", t.getLine());
+            return identifiers.size();
+        });
+        allPassed &= check("ErrorHandler.reportError", Double.MAX_VALUE, 1.0, corpus, c -> {
+            ErrorHandler handler = new ErrorHandler();
+            int n = 100 * ErrorHandler.MAX_ERRORS; // past MAX_ERRORS errors are only counted
+            for (int i = 0; i < n; i++) handler.reportError("Lexical Error", i, 1, "$", "Invalid character");
+            return n;
+        });
+
+        if (!allPassed) {
+            System.out.println("\nAllocation budget exceeded.");
+            System.exit(1);
+        }
+    }
+
+    private static boolean check(String name, double perCharBudget, double perTokenBudget, String corpus, Case c) throws IOException {
+        PrintStream err = System.err;
+        System.setErr(new DiscardingStream());
+        long best = Long.MAX_VALUE;
+        long tokens = 0;
+        try {
+            c.run(corpus); // warm up, so the JIT's escape analysis is in effect as in a long run
+            for (int i = 0; i < RUNS; i++) {
+                long before = THREADS.getCurrentThreadAllocatedBytes();
+                tokens = c.run(corpus);
+                best = Math.min(best, THREADS.getCurrentThreadAllocatedBytes() - before);
+            }
+        } finally {
+            System.setErr(err);
+        }
+        double perChar = (double) best / corpus.length();
+        double perToken = (double) best / Math.max(1, tokens);
+        boolean passed = perChar <= perCharBudget && perToken <= perTokenBudget;
+        System.out.printf("%-28s %10.2f %10s %12.1f %12s  %s%n", name, perChar, format(perCharBudget, "%.2f"),
+                          perToken, format(perTokenBudget, "%.1f"), passed ? "PASS" : "FAIL");
+        return passed;
+    }
+
+    // Drops text before it is encoded, so discarded messages cost only what the caller built
+    private static class DiscardingStream extends PrintStream {
+        DiscardingStream() {
+            super(OutputStream.nullOutputStream());
+        }
+
+        @Override public void print(String s) { }
+        @Override public void print(Object o) { }
+        @Override public void println(String s) { }
+        @Override public void println(Object o) { }
+        @Override public void write(int b) { }
+        @Override public void write(byte[] b, int off, int len) { }
+    }
+
+    // Double.MAX_VALUE means the case has no budget for that measure
+    private static String format(double budget, String pattern) {
+        return (budget == Double.MAX_VALUE) ? "-" : String.format(pattern, budget);
+    }
+
+    private static long sum(Iterable<Integer> counts) {
+        long n = 0;
+        for (int count : counts) n += count;
+        return n;
+    }
+
+    private static String buildCorpus(Path dir) throws IOException {
+        StringBuilder programs = new StringBuilder();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.lang")) {
+            List<Path> sorted = new ArrayList<>();
+            files.forEach(sorted::add);
+            sorted.sort(null);
+            for (Path p : sorted) programs.append(new String(Files.readAllBytes(p))).append('\n');
+        }
+        if (programs.length() == 0) throw new IOException("No .lang files in " + dir);
+        StringBuilder corpus = new StringBuilder(CORPUS_SIZE + programs.length());
+        while (corpus.length() < CORPUS_SIZE) corpus.append(programs);
+        return corpus.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.List;
+
+// Scanner state at the start of a line, enough to start a ManualScanner there later
+// (see ManualScanner.setCheckpointInterval and the Checkpoint constructors).
+// offset counts chars after line-ending normalization, rawOffset counts chars of the input
+// as read, which is where a resumed scanner has to skip to.
+public class Checkpoint implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public final long offset;
+    public final long rawOffset;
+    public final int line;
+    public final int commentCount;
+    public final long unclosedCommentFrom; // Long.MAX_VALUE if no comment has run to EOF yet
+
+    // Lexer mode: a checkpoint can fall inside a multi-line comment that started on an earlier line
+    public final boolean inComment;
+    public final long commentStart;
+    public final int commentLine;
+    public final int commentCol;
+
+    public Checkpoint(long offset, long rawOffset, int line, int commentCount, long unclosedCommentFrom,
+                      boolean inComment, long commentStart, int commentLine, int commentCol) {
+        this.offset = offset;
+        this.rawOffset = rawOffset;
+        this.line = line;
+        this.commentCount = commentCount;
+        this.unclosedCommentFrom = unclosedCommentFrom;
+        this.inComment = inComment;
+        this.commentStart = commentStart;
+        this.commentLine = commentLine;
+        this.commentCol = commentCol;
+    }
+
+    // The last checkpoint at or before the given line, or null (start from the beginning).
+    // Checkpoints are in line order, as the scanner produces them.
+    public static Checkpoint before(List<Checkpoint> checkpoints, int line) {
+        int lo = 0, hi = checkpoints.size() - 1;
+        Checkpoint found = null;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (checkpoints.get(mid).line <= line) {
+                found = checkpoints.get(mid);
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    // Compact binary form, for storing many checkpoints next to a large input
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(offset);
+        out.writeLong(rawOffset);
+        out.writeInt(line);
+        out.writeInt(commentCount);
+        out.writeLong(unclosedCommentFrom);
+        out.writeBoolean(inComment);
+        if (inComment) {
+            out.writeLong(commentStart);
+            out.writeInt(commentLine);
+            out.writeInt(commentCol);
+        }
+    }
+
+    public static Checkpoint readFrom(DataInput in) throws IOException {
+        long offset = in.readLong();
+        long rawOffset = in.readLong();
+        int line = in.readInt();
+        int commentCount = in.readInt();
+        long unclosedCommentFrom = in.readLong();
+        boolean inComment = in.readBoolean();
+        if (!inComment) return new Checkpoint(offset, rawOffset, line, commentCount, unclosedCommentFrom, false, 0, 0, 0);
+        return new Checkpoint(offset, rawOffset, line, commentCount, unclosedCommentFrom,
+                              true, in.readLong(), in.readInt(), in.readInt());
+    }
+
+    @Override
+    public String toString() {
+        return "Checkpoint[line " + line + ", offset " + offset + (inComment ? ", in comment from line " + commentLine : "") + "]";
+    }
+}
@@ -0,0 +1,132 @@
+package src;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipInputStream;
+
+// Opens scanner input, transparently decompressing .gz, .zip (first entry) and .deflate/.zz files.
+// Decompression runs on a background thread that hands chunks to the scanner through a bounded
+// queue, so inflating overlaps with scanning and at most QUEUE_CHUNKS chunks are buffered.
+public class CompressedInput {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int QUEUE_CHUNKS = 4;
+
+    public static Reader open(String path) throws IOException {
+        String name = path.toLowerCase();
+        if (!isCompressed(name)) {
+            return new FileReader(path);
+        }
+
+        InputStream raw = new BufferedInputStream(new FileInputStream(path), CHUNK_SIZE);
+        InputStream decompressed;
+        try {
+            if (name.endsWith(".gz") || name.endsWith(".gzip")) {
+                decompressed = new GZIPInputStream(raw, CHUNK_SIZE);
+            } else if (name.endsWith(".zip")) {
+                ZipInputStream zip = new ZipInputStream(raw);
+                if (zip.getNextEntry() == null) throw new IOException("Empty zip archive: " + path);
+                decompressed = zip;
+            } else {
+                decompressed = new InflaterInputStream(raw);
+            }
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+        return new InputStreamReader(new BackgroundInputStream(decompressed, path));
+    }
+
+    public static boolean isCompressed(String path) {
+        String name = path.toLowerCase();
+        return name.endsWith(".gz") || name.endsWith(".gzip") || name.endsWith(".zip")
+            || name.endsWith(".deflate") || name.endsWith(".zz");
+    }
+
+    // InputStream fed by a producer thread that reads the source ahead into a bounded queue
+    private static class BackgroundInputStream extends InputStream {
+        private static final byte[] END = new byte[0];
+
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        private final Thread producer;
+        private volatile IOException failure;
+        private byte[] chunk;
+        private int chunkPos;
+        private boolean eof = false;
+
+        BackgroundInputStream(InputStream source, String name) {
+            producer = new Thread(() -> pump(source), "decompress " + name);
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        private void pump(InputStream source) {
+            try (InputStream in = source) {
+                int n;
+                do {
+                    byte[] buf = new byte[CHUNK_SIZE];
+                    n = in.readNBytes(buf, 0, CHUNK_SIZE);
+                    if (n > 0) queue.put(n == CHUNK_SIZE ? buf : Arrays.copyOf(buf, n));
+                } while (n == CHUNK_SIZE);
+            } catch (IOException e) {
+                failure = e; // rethrown to the reader once it reaches the end marker
+            } catch (InterruptedException e) {
+                return; // reader closed the stream
+            }
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                // reader closed the stream
+            }
+        }
+
+        private boolean fill() throws IOException {
+            if (eof) return false;
+            if (chunk != null && chunkPos < chunk.length) return true;
+            try {
+                chunk = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decompressed input");
+            }
+            chunkPos = 0;
+            if (chunk == END) {
+                eof = true;
+                if (failure != null) throw failure;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? chunk[chunkPos++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, chunk.length - chunkPos);
+            System.arraycopy(chunk, chunkPos, b, off, n);
+            chunkPos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            eof = true;
+            producer.interrupt();
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package src;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compiles a LexerGenerator.Dfa into JVM bytecode: a hidden class implementing DfaMatcher whose
+// match() has one block of code per DFA state. A state reads the next char and picks the next
+// state with a binary search over the char ranges it has transitions for, jumping straight to
+// that state's block, so there are no table loads and the JIT sees the automaton as plain branches.
+// A resumed run enters through a binary search on the state it was left in; each state has small
+// exits that record it before returning at limit or when the DFA dies.
+//
+// The class file is written by hand (JDK 17 has no class-file API, and the tree has no bytecode
+// library); it is small: one constant pool, a constructor and match() with a StackMapTable.
+public class DfaCompiler {
+    private static final String CLASS_NAME = "src/CompiledDfa";
+
+    // Locals of match(): this, buf, p (next char), limit, state, rule and end of the longest match, c
+    private static final int BUF = 1, P = 2, LIMIT = 3, STATE = 4, RULE = 5, END = 6, C = 7;
+
+    // Opcodes used
+    private static final int ICONST_M1 = 0x02, ICONST_0 = 0x03, ICONST_1 = 0x04, LCONST_1 = 0x0a, BIPUSH = 0x10,
+            SIPUSH = 0x11, LDC = 0x12, ILOAD = 0x15, ALOAD = 0x19, CALOAD = 0x34, ISTORE = 0x36, IADD = 0x60,
+            ISHL = 0x78, LSHL = 0x79, IOR = 0x80, LOR = 0x81, I2L = 0x85, IINC = 0x84, IF_ICMPGE = 0xa2, GOTO = 0xa7,
+            LRETURN = 0xad, RETURN = 0xb1, INVOKESPECIAL = 0xb7;
+
+    public static DfaMatcher compile(LexerGenerator.Dfa dfa) {
+        byte[] bytes = new DfaCompiler(dfa).classFile();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (DfaMatcher) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not load the compiled DFA", e);
+        }
+    }
+
+    private final LexerGenerator.Dfa dfa;
+    private final ConstantPool pool = new ConstantPool();
+    private byte[] code = new byte[4096];
+    private int length = 0;
+    private int[] labels;                               // label -> code offset, -1 until placed
+    private final List<int[]> fixups = new ArrayList<>(); // {branch opcode offset, label}
+    private final List<Integer> frames = new ArrayList<>(); // offsets that need a stack map frame
+
+    private DfaCompiler(LexerGenerator.Dfa dfa) {
+        this.dfa = dfa;
+    }
+
+    private byte[] classFile() {
+        int states = dfa.stateCount();
+        // labels 0..states-1 are the states (DEAD's block is the no-match exit), then the "out of
+        // input" exit, then per state: where a resumed run reads its next char, and the stubs that
+        // record the state before taking the two exits
+        int outOfInput = states;
+        int read = states + 1, atLimit = read + states, dies = atLimit + states;
+        labels = new int[dies + states];
+        Arrays.fill(labels, -1);
+
+        // c = 0; then go to the block of the state the run is in
+        op(ICONST_0);
+        local(ISTORE, C);
+        List<int[]> entries = new ArrayList<>();
+        entries.add(new int[] {Integer.MIN_VALUE, LexerGenerator.Dfa.DEAD});
+        for (int s = 1; s < states; s++) entries.add(new int[] {s, read + s});
+        entries.add(new int[] {states, LexerGenerator.Dfa.DEAD});
+        dispatch(STATE, entries, 0, entries.size() - 1);
+
+        for (int s = 1; s < states; s++) {
+            place(s);
+            if (dfa.accept[s] >= 0) {
+                pushInt(dfa.accept[s]);
+                local(ISTORE, RULE);
+                local(ILOAD, P);
+                local(ISTORE, END);
+            }
+            // if (p >= limit) out of input; c = buf[p++]
+            place(read + s);
+            local(ILOAD, P);
+            local(ILOAD, LIMIT);
+            jump(IF_ICMPGE, atLimit + s);
+            local(ALOAD, BUF);
+            local(ILOAD, P);
+            op(CALOAD);
+            local(ISTORE, C);
+            op(IINC);
+            u1(P);
+            u1(1);
+            List<int[]> ranges = transitions(s);
+            for (int[] range : ranges) {
+                if (range[1] == LexerGenerator.Dfa.DEAD) range[1] = dies + s;
+            }
+            dispatch(C, ranges, 0, ranges.size() - 1);
+        }
+
+        // A char the DFA dies on is not consumed: p is only used through end from here
+        for (int s = 1; s < states; s++) {
+            stateExit(atLimit + s, s, outOfInput);
+            stateExit(dies + s, s, LexerGenerator.Dfa.DEAD);
+        }
+        place(LexerGenerator.Dfa.DEAD);
+        returnResult(false);
+        place(outOfInput);
+        returnResult(true);
+
+        for (int[] f : fixups) {
+            int offset = labels[f[1]] - f[0];
+            if (offset != (short) offset) throw new IllegalStateException("DFA too large to compile to one method");
+            code[f[0] + 1] = (byte) (offset >> 8);
+            code[f[0] + 2] = (byte) offset;
+        }
+        if (length > 65535) throw new IllegalStateException("DFA too large to compile to one method");
+        return writeClass();
+    }
+
+    // The state's transitions as {first char, target state} ranges covering all chars, merged where
+    // neighbouring chars go to the same state
+    private List<int[]> transitions(int state) {
+        List<int[]> ranges = new ArrayList<>();
+        for (int c = 0; c < 128; c++) addRange(ranges, c, target(state, dfa.asciiClasses[c]));
+        for (int i = 0; i < dfa.rangeStarts.length; i++) addRange(ranges, dfa.rangeStarts[i], target(state, dfa.rangeClasses[i]));
+        return ranges;
+    }
+
+    private int target(int state, int cls) {
+        return dfa.next[state * dfa.classCount + cls];
+    }
+
+    private static void addRange(List<int[]> ranges, int from, int target) {
+        if (ranges.isEmpty() || ranges.get(ranges.size() - 1)[1] != target) ranges.add(new int[] {from, target});
+    }
+
+    // Binary search on a local (c, or state on entry) over ranges[lo..hi], ending in a jump to the
+    // matching range's label
+    private void dispatch(int var, List<int[]> ranges, int lo, int hi) {
+        if (lo == hi) {
+            jump(GOTO, ranges.get(lo)[1]);
+            return;
+        }
+        int mid = (lo + hi + 1) >>> 1;
+        int upper = newLabel();
+        local(ILOAD, var);
+        pushInt(ranges.get(mid)[0]);
+        jump(IF_ICMPGE, upper);
+        dispatch(var, ranges, lo, mid - 1);
+        place(upper);
+        dispatch(var, ranges, mid, hi);
+    }
+
+    // state = s; goto exit
+    private void stateExit(int label, int s, int exit) {
+        place(label);
+        pushInt(s);
+        local(ISTORE, STATE);
+        jump(GOTO, exit);
+    }
+
+    // return DfaMatcher.result(end, state, rule, atLimit)
+    private void returnResult(boolean atLimit) {
+        local(ILOAD, END);
+        op(I2L);
+        pushInt(32);
+        op(LSHL);
+        local(ILOAD, RULE);
+        op(ICONST_1);
+        op(IADD);
+        op(ICONST_1);
+        op(ISHL);
+        local(ILOAD, STATE);
+        pushInt(16);
+        op(ISHL);
+        op(IOR);
+        op(I2L);
+        op(LOR);
+        if (atLimit) {
+            op(LCONST_1);
+            op(LOR);
+        }
+        op(LRETURN);
+    }
+
+    // ---- code emission ----
+
+    private int newLabel() {
+        labels = Arrays.copyOf(labels, labels.length + 1);
+        labels[labels.length - 1] = -1;
+        return labels.length - 1;
+    }
+
+    private void place(int label) {
+        labels[label] = length;
+        if (frames.isEmpty() || frames.get(frames.size() - 1) != length) frames.add(length);
+    }
+
+    private void jump(int opcode, int label) {
+        fixups.add(new int[] {length, label});
+        op(opcode);
+        u1(0);
+        u1(0);
+    }
+
+    private void local(int opcode, int index) {
+        op(opcode);
+        u1(index);
+    }
+
+    private void pushInt(int v) {
+        if (v >= -1 && v <= 5) {
+            op(ICONST_0 + v);
+        } else if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE) {
+            op(BIPUSH);
+            u1(v);
+        } else if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) {
+            op(SIPUSH);
+            u1(v >> 8);
+            u1(v);
+        } else {
+            int index = pool.integer(v);
+            if (index > 255) throw new IllegalStateException("Too many constants");
+            op(LDC);
+            u1(index);
+        }
+    }
+
+    private void op(int opcode) {
+        u1(opcode);
+    }
+
+    private void u1(int b) {
+        if (length == code.length) code = Arrays.copyOf(code, length * 2);
+        code[length++] = (byte) b;
+    }
+
+    // ---- class file ----
+
+    private byte[] writeClass() {
+        int thisClass = pool.classRef(CLASS_NAME);
+        int superClass = pool.classRef("java/lang/Object");
+        int matcher = pool.classRef("src/DfaMatcher");
+        int charArray = pool.classRef("[C");
+        int objectInit = pool.methodRef(superClass, "<init>", "()V");
+        int init = pool.utf8("<init>"), initType = pool.utf8("()V");
+        int match = pool.utf8("match"), matchType = pool.utf8("([CIIIII)J");
+        int codeName = pool.utf8("Code"), stackMapName = pool.utf8("StackMapTable");
+
+        // Every frame has the same locals (all set in the prologue) and an empty stack
+        ByteWriter stackMap = new ByteWriter();
+        stackMap.u2(frames.size());
+        int previous = -1;
+        for (int offset : frames) {
+            int delta = (previous < 0) ? offset : offset - previous - 1;
+            if (previous < 0) {
+                stackMap.u1(255); // full_frame
+                stackMap.u2(delta);
+                stackMap.u2(C + 1);
+                stackMap.u1(7);   // Object this
+                stackMap.u2(thisClass);
+                stackMap.u1(7);   // Object char[]
+                stackMap.u2(charArray);
+                for (int i = P; i <= C; i++) stackMap.u1(1); // int
+                stackMap.u2(0);
+            } else if (delta < 64) {
+                stackMap.u1(delta); // same_frame
+            } else {
+                stackMap.u1(251);   // same_frame_extended
+                stackMap.u2(delta);
+            }
+            previous = offset;
+        }
+
+        ByteWriter out = new ByteWriter();
+        out.u4(0xCAFEBABE);
+        out.u2(0);
+        out.u2(52); // Java 8 class file format
+        pool.writeTo(out);
+        out.u2(0x0010 | 0x0020); // final, super
+        out.u2(thisClass);
+        out.u2(superClass);
+        out.u2(1);
+        out.u2(matcher);
+        out.u2(0); // fields
+
+        out.u2(2); // methods
+        out.u2(0x0001);
+        out.u2(init);
+        out.u2(initType);
+        out.u2(1);
+        out.u2(codeName);
+        out.u4(12 + 5);
+        out.u2(1); // max stack
+        out.u2(1); // max locals
+        out.u4(5);
+        out.u1(0x2a); // aload_0
+        out.u1(INVOKESPECIAL);
+        out.u2(objectInit);
+        out.u1(RETURN);
+        out.u2(0);
+        out.u2(0);
+
+        out.u2(0x0001);
+        out.u2(match);
+        out.u2(matchType);
+        out.u2(1);
+        out.u2(codeName);
+        out.u4(12 + length + 6 + stackMap.size());
+        out.u2(5);     // max stack
+        out.u2(C + 1); // max locals
+        out.u4(length);
+        out.bytes(code, length);
+        out.u2(0);     // exception table
+        out.u2(1);
+        out.u2(stackMapName);
+        out.u4(stackMap.size());
+        out.bytes(stackMap.toByteArray(), stackMap.size());
+
+        out.u2(0); // class attributes
+        return out.toByteArray();
+    }
+
+    private static class ConstantPool {
+        private final ByteWriter entries = new ByteWriter();
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String s) {
+            return indexes.computeIfAbsent("U" + s, k -> {
+                entries.u1(1);
+                entries.u2(s.length()); // only ASCII names are used
+                entries.bytes(s.getBytes(), s.length());
+                return count++;
+            });
+        }
+
+        int classRef(String name) {
+            int n = utf8(name);
+            return indexes.computeIfAbsent("C" + name, k -> {
+                entries.u1(7);
+                entries.u2(n);
+                return count++;
+            });
+        }
+
+        int methodRef(int owner, String name, String type) {
+            int n = utf8(name), t = utf8(type);
+            int nameAndType = indexes.computeIfAbsent("N" + name + type, k -> {
+                entries.u1(12);
+                entries.u2(n);
+                entries.u2(t);
+                return count++;
+            });
+            return indexes.computeIfAbsent("M" + owner + "." + name + type, k -> {
+                entries.u1(10);
+                entries.u2(owner);
+                entries.u2(nameAndType);
+                return count++;
+            });
+        }
+
+        int integer(int v) {
+            return indexes.computeIfAbsent("I" + v, k -> {
+                entries.u1(3);
+                entries.u4(v);
+                return count++;
+            });
+        }
+
+        void writeTo(ByteWriter out) {
+            out.u2(count);
+            out.bytes(entries.toByteArray(), entries.size());
+        }
+    }
+
+    private static class ByteWriter {
+        private byte[] data = new byte[256];
+        private int size = 0;
+
+        void u1(int b) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = (byte) b;
+        }
+
+        void u2(int v) {
+            u1(v >> 8);
+            u1(v);
+        }
+
+        void u4(int v) {
+            u2(v >>> 16);
+            u2(v);
+        }
+
+        void bytes(byte[] b, int n) {
+            for (int i = 0; i < n; i++) u1(b[i]);
+        }
+
+        int size() { return size; }
+
+        byte[] toByteArray() { return Arrays.copyOf(data, size); }
+    }
+}
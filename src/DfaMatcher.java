@@ -0,0 +1,28 @@
+package src;
+
+// Longest-match run of a scanner DFA over part of a buffer. LexerGenerator.Dfa interprets its
+// tables; DfaCompiler turns the same tables into bytecode. match() runs from buf[p] in the given
+// state, with the longest accepted prefix so far (rule, end), and stops when the DFA dies or at
+// limit. A run that stops at limit is continued by calling match() again with the returned state,
+// rule and end once more input is in, so no char is scanned twice. The result packs
+//   bits 32-63  end of the longest accepted prefix (the run's start if there is none)
+//   bits 16-31  the last live state: the state at limit, or the one the DFA died in
+//   bits 1-15   index of the accepted rule + 1 (0 if none)
+//   bit 0       set if it stopped at limit with the DFA still alive (more input could extend the match)
+public interface DfaMatcher {
+    long match(char[] buf, int p, int limit, int state, int rule, int end);
+
+    // A run from the start state
+    default long match(char[] buf, int from, int limit) {
+        return match(buf, from, limit, LexerGenerator.Dfa.START, -1, from);
+    }
+
+    static long result(int end, int state, int rule, boolean atLimit) {
+        return ((long) end << 32) | (state << 16) | ((rule + 1) << 1) | (atLimit ? 1 : 0);
+    }
+
+    static int end(long result) { return (int) (result >>> 32); }
+    static int state(long result) { return ((int) result >>> 16) & 0xFFFF; }
+    static int rule(long result) { return (((int) result & 0xFFFF) >>> 1) - 1; }
+    static boolean atLimit(long result) { return (result & 1) != 0; }
+}
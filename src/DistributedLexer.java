@@ -0,0 +1,513 @@
+package src;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Lexes many files across worker JVMs. The coordinator hands out one file (shard) at a time over
+// TCP; a worker lexes it with ManualScanner or Yylex and streams back a binary result: optionally
+// the tokens, then statistics, symbols and errors. The coordinator merges everything in file
+// order, so the output doesn't depend on which worker did what. If a worker dies, its shard goes
+// back in the queue for the others (a shard that has killed MAX_ATTEMPTS workers is given up).
+// A worker that stays silent for WORKER_TIMEOUT_MS counts as dead too: while lexing, workers send
+// a heartbeat record every HEARTBEAT_MS, so only a hung worker goes quiet that long.
+//
+// Workers are local child JVMs by default. With --external the coordinator instead waits for
+// workers started elsewhere ("worker <host> <port>") and listens on all interfaces; file paths
+// must be visible to the workers.
+//
+// Usage: java src.DistributedLexer [--workers N] [--port P] [--engine manual|jflex]
+//                                  [--archive DIR] [--external] <file-or-directory>...
+//        java src.DistributedLexer worker <host> <port>
+public class DistributedLexer {
+    private static final int OP_QUIT = 0;
+    private static final int OP_LEX = 1;
+    private static final int TOKEN = 1;      // token record follows
+    private static final int HEARTBEAT = 2;  // the worker is still busy with the shard
+    private static final int END_TOKENS = 0; // end of records, the summary follows
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int ACCEPT_TIMEOUT_MS = 30_000;
+    private static final int WORKER_TIMEOUT_MS = 60_000;
+    private static final long HEARTBEAT_MS = 5_000;
+    private static final String USAGE = "Usage: java src.DistributedLexer [--workers N] [--port P] [--engine manual|jflex]\n"
+                                      + "                                 [--archive DIR] [--external] <file-or-directory>...\n"
+                                      + "       java src.DistributedLexer worker <host> <port>";
+
+    private static class Shard {
+        final int index;
+        final String path;
+        int attempts = 0;
+
+        Shard(int index, String path) {
+            this.index = index;
+            this.path = path;
+        }
+    }
+
+    // A write to the coordinator failed inside a listener callback. Not an UncheckedIOException:
+    // ManualScanner unwraps those into read errors of the file being lexed.
+    private static class ConnectionLost extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ConnectionLost(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    // What one worker sent back for one file
+    private static class ShardResult {
+        String error; // set if the worker couldn't read the file
+        long tokens;
+        int lines;
+        int comments;
+        Map<TokenType, Integer> typeCounts = new EnumMap<>(TokenType.class);
+        SymbolTable symbols = new SymbolTable();
+        List<String[]> errors = new ArrayList<>(); // type, line, column, lexeme, reason
+        int droppedErrors;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("worker")) {
+            worker(args[1], Integer.parseInt(args[2]));
+            return;
+        }
+
+        int workers = 2, port = 0;
+        String engine = "manual";
+        Path archiveDir = null;
+        boolean external = false;
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--workers": workers = Integer.parseInt(args[++i]); break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--engine": engine = args[++i]; break;
+                case "--archive": archiveDir = Paths.get(args[++i]); break;
+                case "--external": external = true; break;
+                default:
+                    if (args[i].startsWith("--")) usageError("Unknown option: " + args[i]);
+                    inputs.add(args[i]);
+            }
+        }
+        if (inputs.isEmpty()) inputs.add("tests");
+        if (!engine.equals("manual") && !engine.equals("jflex")) usageError("Unknown engine: " + engine);
+        if (archiveDir != null) Files.createDirectories(archiveDir);
+        new DistributedLexer(collectFiles(inputs), engine, archiveDir).coordinate(workers, port, external);
+    }
+
+    private static void usageError(String message) {
+        System.err.println(message);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final BlockingQueue<Shard> pending = new LinkedBlockingQueue<>();
+    private final AtomicInteger remaining;
+    private final AtomicInteger liveWorkers = new AtomicInteger();
+    private final ShardResult[] results;
+    private final String engine;
+    private final Path archiveDir;
+
+    private DistributedLexer(List<String> files, String engine, Path archiveDir) {
+        for (String f : files) shards.add(new Shard(shards.size(), f));
+        pending.addAll(shards);
+        remaining = new AtomicInteger(shards.size());
+        results = new ShardResult[shards.size()];
+        this.engine = engine;
+        this.archiveDir = archiveDir;
+    }
+
+    private void coordinate(int workers, int port, boolean external) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        List<Process> processes = new ArrayList<>();
+        List<Thread> handlers = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(port, workers, external ? null : InetAddress.getLoopbackAddress())) {
+            if (external) {
+                System.out.println("Waiting for " + workers + " workers on port " + server.getLocalPort());
+            } else {
+                String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+                for (int i = 0; i < workers; i++) {
+                    processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "src.DistributedLexer",
+                                                     "worker", "localhost", String.valueOf(server.getLocalPort()))
+                            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                            .redirectError(ProcessBuilder.Redirect.INHERIT)
+                            .start());
+                }
+            }
+
+            server.setSoTimeout(ACCEPT_TIMEOUT_MS);
+            for (int i = 0; i < workers; i++) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    System.err.println("Only " + i + " of " + workers + " workers connected");
+                    break;
+                }
+                liveWorkers.incrementAndGet();
+                Thread t = new Thread(() -> serve(socket), "worker-" + i);
+                handlers.add(t);
+                t.start();
+            }
+        }
+
+        for (Thread t : handlers) t.join();
+        for (Process p : processes) {
+            if (!p.waitFor(5, TimeUnit.SECONDS)) p.destroyForcibly();
+        }
+
+        long ms = (System.nanoTime() - started) / 1_000_000;
+        printMerged(ms);
+    }
+
+    // Handles one worker connection: hands it shards until there are none left or it dies
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 1 << 16));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream(), 1 << 16))) {
+            s.setSoTimeout(WORKER_TIMEOUT_MS);
+            while (remaining.get() > 0) {
+                Shard shard = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (shard == null) continue;
+                try {
+                    out.writeInt(OP_LEX);
+                    out.writeUTF(shard.path);
+                    out.writeUTF(engine);
+                    out.writeBoolean(archiveDir != null);
+                    out.flush();
+                    results[shard.index] = receive(in, shard);
+                    remaining.decrementAndGet();
+                } catch (IOException e) {
+                    requeue(shard, e);
+                    return;
+                }
+            }
+            out.writeInt(OP_QUIT);
+            out.flush();
+        } catch (IOException | InterruptedException e) {
+            // connection already gone; its shard (if any) was requeued above
+        } finally {
+            if (liveWorkers.decrementAndGet() == 0 && remaining.get() > 0) {
+                System.err.println("All workers are gone; " + remaining.get() + " file(s) not lexed");
+                remaining.set(0);
+            }
+        }
+    }
+
+    private void requeue(Shard shard, IOException cause) {
+        shard.attempts++;
+        if (shard.attempts >= MAX_ATTEMPTS) {
+            ShardResult failed = new ShardResult();
+            failed.error = "gave up after " + shard.attempts + " workers failed on it (" + cause.getMessage() + ")";
+            results[shard.index] = failed;
+            remaining.decrementAndGet();
+        } else {
+            System.err.println("Worker lost while lexing " + shard.path + "; reassigning");
+            pending.add(shard);
+        }
+    }
+
+    // Reads the worker's answer for a shard. An IOException from here means the connection failed;
+    // the coordinator's own archive errors don't, they only fail the shard (the answer is still
+    // read to the end, so the connection stays usable).
+    private ShardResult receive(DataInputStream in, Shard shard) throws IOException {
+        TokenArchive.Writer archive = null;
+        Path tmp = null;
+        IOException archiveError = null;
+        try {
+            if (archiveDir != null) {
+                tmp = archiveDir.resolve(shard.index + ".tmp");
+                try {
+                    archive = new TokenArchive.Writer(tmp);
+                } catch (IOException e) {
+                    archiveError = e;
+                }
+            }
+            int record;
+            while ((record = in.readByte()) != END_TOKENS) {
+                if (record == HEARTBEAT) continue;
+                TokenType type = TokenType.values()[in.readByte()];
+                Token t = new Token(type, readString(in), in.readInt(), in.readInt());
+                if (archive == null) continue;
+                try {
+                    archive.write(t);
+                } catch (IOException e) {
+                    archiveError = e;
+                    archive = closeQuietly(archive);
+                }
+            }
+            if (archive != null) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    archiveError = e;
+                }
+                archive = null;
+            }
+
+            ShardResult r = new ShardResult();
+            if (!in.readBoolean()) {
+                r.error = readString(in);
+                return r;
+            }
+            r.tokens = in.readLong();
+            r.lines = in.readInt();
+            r.comments = in.readInt();
+            int types = in.readInt();
+            for (int i = 0; i < types; i++) {
+                r.typeCounts.put(TokenType.values()[in.readByte()], in.readInt());
+            }
+            int symbols = in.readInt();
+            for (int i = 0; i < symbols; i++) {
+                r.symbols.add(readString(in), "IDENTIFIER", in.readInt(), in.readInt());
+            }
+            int errors = in.readInt();
+            for (int i = 0; i < errors; i++) {
+                r.errors.add(new String[] {readString(in), String.valueOf(in.readInt()), String.valueOf(in.readInt()),
+                                           readString(in), readString(in)});
+            }
+            r.droppedErrors = in.readInt();
+
+            if (tmp != null && archiveError == null) {
+                String name = Paths.get(shard.path).getFileName() + "." + shard.index + ".lta";
+                try {
+                    Files.move(tmp, archiveDir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+                    tmp = null;
+                } catch (IOException e) {
+                    archiveError = e;
+                }
+            }
+            if (archiveError != null) {
+                ShardResult failed = new ShardResult();
+                failed.error = "could not write the archive (" + archiveError.getMessage() + ")";
+                return failed;
+            }
+            return r;
+        } finally {
+            closeQuietly(archive);
+            if (tmp != null) {
+                try { Files.deleteIfExists(tmp); } catch (IOException e) { /* nothing more to do */ }
+            }
+        }
+    }
+
+    // Returns null, for clearing the field it was called on
+    private static TokenArchive.Writer closeQuietly(TokenArchive.Writer archive) {
+        if (archive != null) {
+            try { archive.close(); } catch (IOException e) { /* partial archive is deleted by receive() */ }
+        }
+        return null;
+    }
+
+    private void printMerged(long ms) {
+        long totalTokens = 0;
+        int totalLines = 0, totalComments = 0, failed = 0;
+        Map<TokenType, Integer> typeCounts = new EnumMap<>(TokenType.class);
+        SymbolTable symbols = new SymbolTable();
+        ErrorHandler errors = new ErrorHandler();
+        for (Shard shard : shards) {
+            ShardResult r = results[shard.index];
+            if (r == null || r.error != null) {
+                System.err.println("Not lexed: " + shard.path + ((r == null) ? "" : ": " + r.error));
+                failed++;
+                continue;
+            }
+            totalTokens += r.tokens;
+            totalLines += r.lines;
+            totalComments += r.comments;
+            r.typeCounts.forEach((type, n) -> typeCounts.merge(type, n, Integer::sum));
+            symbols.merge(r.symbols);
+            String file = Paths.get(shard.path).getFileName().toString();
+            for (String[] e : r.errors) {
+                errors.reportError(file + ": " + e[0], Integer.parseInt(e[1]), Integer.parseInt(e[2]), e[3], e[4]);
+            }
+            errors.addDropped(r.droppedErrors);
+        }
+
+        System.out.println("\n================ STATISTICS ================");
+        System.out.println("Files: " + (shards.size() - failed) + " of " + shards.size() + " in " + ms + " ms");
+        System.out.println("Total Tokens: " + totalTokens);
+        System.out.println("Lines Processed: " + totalLines);
+        System.out.println("Comments Removed: " + totalComments);
+        System.out.println("\nToken Distribution:");
+        for (Map.Entry<TokenType, Integer> e : typeCounts.entrySet()) {
+            System.out.println("  " + e.getKey() + ": " + e.getValue());
+        }
+        symbols.printTable();
+        errors.printErrors();
+    }
+
+    // Worker side: lexes files on request until told to quit
+    private static void worker(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+            while (in.readInt() == OP_LEX) {
+                String path = in.readUTF();
+                String engine = in.readUTF();
+                boolean sendTokens = in.readBoolean();
+                lexShard(path, engine, sendTokens, out);
+                out.flush();
+            }
+        }
+    }
+
+    private static void lexShard(String path, String engine, boolean sendTokens, DataOutputStream out) throws IOException {
+        long[] tokens = {0};
+        Map<TokenType, Integer> typeCounts = new EnumMap<>(TokenType.class);
+        SymbolTable symbols = new SymbolTable();
+        List<String[]> errors = new ArrayList<>();
+        int[] counts = {0, 0, 0}; // lines, comments, errors reported
+
+        long[] lastBeat = {System.nanoTime()};
+        int[] sinceCheck = {0};
+
+        TokenListener listener = new TokenListener() {
+            // Sends a heartbeat if the coordinator hasn't heard from us for HEARTBEAT_MS; the
+            // clock is only read every 256 callbacks
+            private void beat() {
+                if ((++sinceCheck[0] & 255) != 0) return;
+                long now = System.nanoTime();
+                if (now - lastBeat[0] < TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_MS)) return;
+                lastBeat[0] = now;
+                try {
+                    out.writeByte(HEARTBEAT);
+                    out.flush();
+                } catch (IOException e) {
+                    throw new ConnectionLost(e);
+                }
+            }
+
+            @Override
+            public void onToken(Token t) {
+                beat();
+                tokens[0]++;
+                typeCounts.merge(t.getType(), 1, Integer::sum);
+                if (t.getType() == TokenType.IDENTIFIER) symbols.add(t.getLexeme(), "IDENTIFIER", t.getLine());
+                if (sendTokens) {
+                    try {
+                        out.writeByte(TOKEN);
+                        out.writeByte(t.getType().ordinal());
+                        writeString(out, t.getLexeme());
+                        out.writeInt(t.getLine());
+                        out.writeInt(t.getColumn());
+                    } catch (IOException e) {
+                        throw new ConnectionLost(e);
+                    }
+                }
+            }
+
+            @Override
+            public void onError(String type, int line, int column, String lexeme, String reason) {
+                beat();
+                counts[2]++;
+                if (errors.size() < ErrorHandler.MAX_ERRORS) {
+                    errors.add(new String[] {type, String.valueOf(line), String.valueOf(column), lexeme, reason});
+                }
+            }
+
+            @Override
+            public void onComment(int line, int column, boolean multiLine) {
+                beat();
+            }
+
+            @Override
+            public void onEnd(int lines, int comments) {
+                counts[0] = lines;
+                counts[1] = comments;
+            }
+        };
+
+        try {
+            if (engine.equals("jflex")) {
+                try (Reader in = CompressedInput.open(path)) {
+                    new Yylex(in).scan(listener);
+                }
+            } else {
+                try (ManualScanner scanner = new ManualScanner(path)) {
+                    scanner.scan(listener);
+                }
+            }
+        } catch (ConnectionLost e) {
+            throw e.getCause(); // connection to the coordinator failed
+        } catch (IOException e) {
+            out.writeByte(END_TOKENS);
+            out.writeBoolean(false);
+            writeString(out, e.getMessage() == null ? e.toString() : e.getMessage());
+            return;
+        }
+
+        out.writeByte(END_TOKENS);
+        out.writeBoolean(true);
+        out.writeLong(tokens[0]);
+        out.writeInt(counts[0]);
+        out.writeInt(counts[1]);
+        out.writeInt(typeCounts.size());
+        for (Map.Entry<TokenType, Integer> e : typeCounts.entrySet()) {
+            out.writeByte(e.getKey().ordinal());
+            out.writeInt(e.getValue());
+        }
+        out.writeInt(symbols.size());
+        for (String name : symbols.names()) {
+            writeString(out, name);
+            out.writeInt(symbols.getFirstLine(name));
+            out.writeInt(symbols.getFrequency(name));
+        }
+        out.writeInt(errors.size());
+        for (String[] e : errors) {
+            writeString(out, e[0]);
+            out.writeInt(Integer.parseInt(e[1]));
+            out.writeInt(Integer.parseInt(e[2]));
+            writeString(out, e[3]);
+            writeString(out, e[4]);
+        }
+        out.writeInt(counts[2] - errors.size());
+    }
+
+    // Lexemes and messages can exceed writeUTF's 64K-byte limit (a string literal can be
+    // MAX_STRING_LENGTH chars), so they go as an int length and UTF-8 bytes
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> collectFiles(List<String> inputs) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (String input : inputs) {
+            Path p = Paths.get(input);
+            if (Files.isDirectory(p)) {
+                try (Stream<Path> walk = Files.walk(p)) {
+                    files.addAll(walk.filter(Files::isRegularFile).filter(WatchMode::isSourceFile)
+                                     .map(f -> f.toAbsolutePath().toString()).sorted().collect(Collectors.toList()));
+                }
+            } else {
+                files.add(p.toAbsolutePath().toString());
+            }
+        }
+        return files;
+    }
+}
@@ -27,16 +27,34 @@ public class ErrorHandler {
         }
     }
 
+    // Only the first MAX_ERRORS are kept so hostile input can't grow the list without bound;
+    // the rest are just counted.
+    public static final int MAX_ERRORS = 1000;
+
     private List<Error> errors = new ArrayList<>();
+    private int droppedErrors = 0;
 
     public void reportError(String type, int line, int col, String lexeme, String reason) {
+        if (errors.size() >= MAX_ERRORS) {
+            droppedErrors++;
+            return;
+        }
         errors.add(new Error(type, line, col, lexeme, reason));
     }
 
+    // Counts errors that were reported elsewhere but not kept (e.g. past a worker's MAX_ERRORS)
+    public void addDropped(int count) {
+        droppedErrors += count;
+    }
+
     public boolean hasErrors() {
         return !errors.isEmpty();
     }
 
+    public int getErrorCount() {
+        return errors.size() + droppedErrors;
+    }
+
     public void printErrors() {
         if (!hasErrors()) return;
         
@@ -44,6 +62,9 @@ public class ErrorHandler {
         for (Error e : errors) {
             System.out.println(e);
         }
+        if (droppedErrors > 0) {
+            System.out.println("... " + droppedErrors + " more errors not shown");
+        }
         System.out.println("========================================");
     }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package src;
+
+// Canonical lexemes of the tokens whose text is fixed: operators, punctuators, keywords and
+// booleans. Scanners hand out these constants instead of building a new String per token, so a
+// fixed-text token costs only its Token, and equal lexemes are the same object.
+//
+// Operators and punctuators are looked up by first char, then (for two-char operators) second char,
+// so matching them is two array loads. Words are looked up by length, then compared in place.
+public final class FixedLexemes {
+    private static final String[] OPERATORS = {
+        "+", "-", "*", "/", "%", "**",
+        "==", "!=", "<=", ">=", "<", ">",
+        "&&", "||", "!",
+        "=", "+=", "-=", "*=", "/=",
+        "++", "--",
+        "(", ")", "{", "}", "[", "]", ",", ";", ":"
+    };
+    private static final String[] WORDS = {
+        "start", "finish", "loop", "condition", "declare", "output", "input",
+        "function", "return", "break", "continue", "else", "true", "false"
+    };
+
+    private static final String[] SINGLE = new String[128];   // one-char operator starting with c
+    private static final String[][] PAIRS = new String[128][]; // [c1][c2], null if c1 starts no pair
+    private static final String[][] WORDS_BY_LENGTH = new String[10][];
+
+    static {
+        for (String op : OPERATORS) {
+            char c1 = op.charAt(0);
+            if (op.length() == 1) {
+                SINGLE[c1] = op;
+            } else {
+                if (PAIRS[c1] == null) PAIRS[c1] = new String[128];
+                PAIRS[c1][op.charAt(1)] = op;
+            }
+        }
+        for (String w : WORDS) {
+            String[] same = WORDS_BY_LENGTH[w.length()];
+            String[] grown = new String[(same == null) ? 1 : same.length + 1];
+            if (same != null) System.arraycopy(same, 0, grown, 0, same.length);
+            grown[grown.length - 1] = w;
+            WORDS_BY_LENGTH[w.length()] = grown;
+        }
+    }
+
+    private FixedLexemes() {}
+
+    // Single-char operator or punctuator, or null
+    public static String operator(char c) {
+        return (c < 128) ? SINGLE[c] : null;
+    }
+
+    // Two-char operator, or null
+    public static String operator(char c1, char c2) {
+        String[] second = (c1 < 128) ? PAIRS[c1] : null;
+        return (second != null && c2 < 128) ? second[c2] : null;
+    }
+
+    // True if some operator or punctuator starts with c
+    public static boolean startsOperator(char c) {
+        return c < 128 && (SINGLE[c] != null || PAIRS[c] != null);
+    }
+
+    // Keyword or boolean equal to buf[from, from + length), or null
+    public static String word(char[] buf, int from, int length) {
+        if (length >= WORDS_BY_LENGTH.length || WORDS_BY_LENGTH[length] == null) return null;
+        for (String w : WORDS_BY_LENGTH[length]) {
+            int i = 0;
+            while (i < length && buf[from + i] == w.charAt(i)) i++;
+            if (i == length) return w;
+        }
+        return null;
+    }
+
+    // Canonical lexeme for buf[from, from + length) if it is any fixed text, or null
+    public static String canonical(char[] buf, int from, int length) {
+        if (length == 1) return operator(buf[from]);
+        if (length == 2) {
+            String op = operator(buf[from], buf[from + 1]);
+            if (op != null) return op;
+        }
+        return word(buf, from, length);
+    }
+
+    // Token types whose lexemes are always fixed text
+    public static boolean hasFixedText(TokenType type) {
+        switch (type) {
+            case KEYWORD:
+            case BOOLEAN_LITERAL:
+            case OPERATOR_ARITHMETIC:
+            case OPERATOR_RELATIONAL:
+            case OPERATOR_LOGICAL:
+            case OPERATOR_ASSIGNMENT:
+            case OPERATOR_INC_DEC:
+            case PUNCTUATOR:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package src;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Scanner that runs the DFA LexerGenerator builds from the grammar file. Longest match: it follows
+// transitions until the DFA gets stuck and returns the longest accepted prefix (the earliest rule
+// on ties). A character no rule can start with is reported as an error and skipped.
+//
+// A run that reaches the end of the buffer is resumed where it stopped after the next read, so
+// every char is scanned once. Runs are bounded like ManualScanner's lexemes: a comment has to close
+// within MAX_PIN chars, which are looked at without consuming them; a token run that goes past
+// MAX_PIN is consumed as it is scanned, keeping only a prefix, and is reported as too long and
+// dropped, as ManualScanner does. A run that fails inside a comment or string is reported at its
+// start as unclosed and lexing resumes at the end of that line.
+//
+// Unclosed comments don't make this quadratic. Once a comment has run to EOF, later ones are
+// known to be unclosed without rescanning. A comment that stays open for MAX_PIN chars leaves a
+// trail: its DFA state at every STEP-aligned offset. A later run that is in the same state at one
+// of those offsets would repeat it exactly, so it jumps to the end of the trail.
+//
+// With --compiled the DFA runs as bytecode generated by DfaCompiler instead of through the tables.
+//
+// Usage: java src.GeneratedScanner [--grammar file] [--compiled] [file]
+public class GeneratedScanner implements TokenSource {
+    private static final int STEP = 256;                                  // chars per match() call
+    private static final int MAX_PIN = ManualScanner.MAX_STRING_LENGTH;   // longest lexeme kept in the buffer
+    private static LexerGenerator.Dfa defaultDfa; // compiled from DEFAULT_GRAMMAR on first use
+
+    private final Reader reader;
+    private final LexerGenerator.Dfa dfa;
+    private final LexerGenerator.Rule[] rules;
+    private final DfaMatcher matcher;
+    private final long[] unclosedFrom; // per comment rule: no closer exists after an opener starting here
+    private static final int TRAIL = 512; // slots for the aligned offsets of one run, a power of two > MAX_PIN / STEP + 1
+    private int[] trail = new int[TRAIL];   // state at aligned offsets trailFrom..trailTo of the last capped comment
+    private int[] pending = new int[TRAIL]; // the same for the current run, kept if it is capped too
+    private long trailFrom = 0, trailTo = -1;
+
+    private char[] buf = new char[1 << 16];
+    private long base = 0;  // input offset of buf[0]
+    private int start = 0;  // start of the current lexeme in buf
+    private int limit = 0;  // end of the data in buf
+    private boolean eof = false;
+    private int line = 1;
+    private int col = 1;
+    private int commentCount = 0;
+    private final ErrorHandler errorHandler = new ErrorHandler();
+
+    public GeneratedScanner(String filePath) throws IOException {
+        this(CompressedInput.open(filePath), defaultDfa());
+    }
+
+    public GeneratedScanner(Reader reader, LexerGenerator.Dfa dfa) {
+        this(reader, dfa, dfa);
+    }
+
+    // Runs the DFA through another matcher for it, e.g. one from DfaCompiler
+    public GeneratedScanner(Reader reader, LexerGenerator.Dfa dfa, DfaMatcher matcher) {
+        this.reader = reader;
+        this.dfa = dfa;
+        this.rules = dfa.rules;
+        this.matcher = matcher;
+        this.unclosedFrom = new long[rules.length];
+        Arrays.fill(unclosedFrom, Long.MAX_VALUE);
+    }
+
+    // Closes the input, for callers that stop before the end (where it is closed anyway)
+    @Override
+    public void close() throws IOException {
+        eof = true;
+        reader.close();
+    }
+
+    public static synchronized LexerGenerator.Dfa defaultDfa() throws IOException {
+        if (defaultDfa == null) defaultDfa = LexerGenerator.compile(Paths.get(LexerGenerator.DEFAULT_GRAMMAR));
+        return defaultDfa;
+    }
+
+    public int getLineCount() { return line; }
+    public int getCommentCount() { return commentCount; }
+    public ErrorHandler getErrorHandler() { return errorHandler; }
+
+    @Override
+    public Token nextToken() throws IOException {
+        while (true) {
+            if (start == limit && !fill()) return null;
+            int tokenLine = line, tokenCol = col;
+            long tokenOffset = base + start;
+
+            int p = start, state = LexerGenerator.Dfa.START, rule = -1, end = start;
+            String swallowed = null; // set once a token run too long to keep is consumed as it is scanned
+            boolean tooLong = false; // that run was consumed
+            boolean capped = false;  // a comment still open after MAX_PIN chars
+            boolean toEof = false;   // the run only stopped at end of input
+            long runFrom = -1, runTo = -1;     // aligned offsets this run passed without an accept
+            long jumpFrom = 0, jumpTo = -1;    // the part of them it took from the trail
+            while (true) {
+                long next = base + p + STEP - (base + p) % STEP; // stop at aligned offsets, as the trail does
+                int stop = (int) Math.min(Math.min(limit, start + MAX_PIN), next - base);
+                long m = matcher.match(buf, p, stop, state, rule, end);
+                state = DfaMatcher.state(m);
+                rule = DfaMatcher.rule(m);
+                end = DfaMatcher.end(m);
+                if (!DfaMatcher.atLimit(m)) break;
+                p = stop;
+                int only = dfa.onlyRule[state];
+                if (only >= 0 && rule != only && unclosedFrom[only] <= tokenOffset) break; // can't be closed
+                long at = base + p;
+                if (rule < 0 && at % STEP == 0) {
+                    if (runFrom < 0) runFrom = at;
+                    if (at >= trailFrom && at < trailTo && trail[slot(at)] == state) {
+                        jumpFrom = at;
+                        jumpTo = trailTo;
+                        p += (int) (trailTo - at);
+                        state = trail[slot(trailTo)];
+                        at = trailTo;
+                    } else {
+                        pending[slot(at)] = state;
+                    }
+                    runTo = at;
+                }
+                if (p - start >= MAX_PIN) {
+                    if (only >= 0 && rules[only].type == null) {
+                        // A comment isn't consumed: it ends at its accepted prefix or is unclosed
+                        capped = rule < 0;
+                        break;
+                    }
+                    // The token won't be kept: consume it, it can no longer be rewound
+                    tooLong = true;
+                    if (swallowed == null) swallowed = errorLexeme();
+                    advance(p - start);
+                    end = start;
+                }
+                if (p < limit) continue;
+                if (p == limit && eof) {
+                    toEof = true;
+                    break;
+                }
+                do { // a jump along the trail can land past the data read so far
+                    int before = start;
+                    fill();
+                    p -= before - start;
+                    end -= before - start;
+                } while (p > limit && !eof);
+            }
+
+            if (capped) keepTrail(runFrom, runTo, jumpFrom, jumpTo);
+            if (tooLong) {
+                overlong(state, rule, end, tokenLine, tokenCol, swallowed);
+                continue;
+            }
+            if (rule < 0) {
+                unmatched(state, tokenLine, tokenCol, tokenOffset, toEof);
+                continue;
+            }
+            int matched = end - start;
+            LexerGenerator.Rule r = rules[rule];
+            if (r.type == null) {
+                if (r.comment) commentCount++;
+                advance(matched);
+                continue;
+            }
+            String lexeme = FixedLexemes.hasFixedText(r.type) ? FixedLexemes.canonical(buf, start, matched) : null;
+            if (lexeme == null) lexeme = new String(buf, start, matched);
+            advance(matched);
+            return new Token(r.type, lexeme, tokenLine, tokenCol);
+        }
+    }
+
+    private static int slot(long offset) {
+        return (int) (offset / STEP) & (TRAIL - 1);
+    }
+
+    // The run that was just capped becomes the trail: its states at runFrom..runTo, of which
+    // jumpFrom..jumpTo are already in the trail since it followed it there
+    private void keepTrail(long runFrom, long runTo, long jumpFrom, long jumpTo) {
+        if (runFrom < 0) return;
+        for (long at = runFrom; at <= runTo; at += STEP) {
+            if (at == jumpFrom) at = jumpTo;
+            else trail[slot(at)] = pending[slot(at)];
+        }
+        trailFrom = runFrom;
+        trailTo = runTo;
+    }
+
+    // No rule matched. state is the last live state of the run: if only a comment or string rule
+    // could still have matched there, it is unclosed and lexing resumes at the end of its line.
+    // A comment can only end at its closer, so one that ran to EOF tells later ones apart.
+    private void unmatched(int state, int tokenLine, int tokenCol, long tokenOffset, boolean toEof) throws IOException {
+        int only = dfa.onlyRule[state];
+        LexerGenerator.Rule r = (only >= 0) ? rules[only] : null;
+        if (r != null && r.comment) {
+            commentCount++;
+            errorHandler.reportError("Lexical Error", tokenLine, tokenCol, errorLexeme(), "Unclosed multi-line comment");
+            if (toEof) unclosedFrom[only] = Math.min(unclosedFrom[only], tokenOffset);
+            skipLine();
+        } else if (r != null && r.type == TokenType.STRING_LITERAL) {
+            errorHandler.reportError("Literal Error", tokenLine, tokenCol, errorLexeme(), "Unclosed string literal");
+            skipLine();
+        } else {
+            errorHandler.reportError("Lexical Error", tokenLine, tokenCol, String.valueOf(buf[start]), "Invalid character");
+            advance(1);
+        }
+    }
+
+    // A token run that went past MAX_PIN and was consumed up to start. If it was accepted again
+    // after that (end > start), the lexeme ends there; a string that never closed is unclosed.
+    // Either way it is reported with its prefix and produces no token.
+    private void overlong(int state, int rule, int end, int tokenLine, int tokenCol, String prefix) throws IOException {
+        TokenType type = (end > start) ? rules[rule].type : null;
+        int only = dfa.onlyRule[state];
+        if (type == null && only >= 0 && rules[only].type == TokenType.STRING_LITERAL) {
+            errorHandler.reportError("Literal Error", tokenLine, tokenCol, prefix, "Unclosed string literal");
+            skipLine();
+            return;
+        }
+        if (end > start) advance(end - start);
+        if (type == TokenType.STRING_LITERAL) {
+            errorHandler.reportError("Literal Error", tokenLine, tokenCol, prefix, "String literal exceeds " + MAX_PIN + " characters");
+        } else if (type == TokenType.INTEGER_LITERAL || type == TokenType.FLOAT_LITERAL) {
+            errorHandler.reportError("Literal Error", tokenLine, tokenCol, prefix, "Numeric literal exceeds " + MAX_PIN + " characters");
+        } else {
+            errorHandler.reportError("Lexical Error", tokenLine, tokenCol, prefix, "Lexeme exceeds " + MAX_PIN + " characters");
+        }
+    }
+
+    // Skips to the newline ending the current line (or to end of input)
+    private void skipLine() throws IOException {
+        while ((start < limit || fill()) && buf[start] != '\n') advance(1);
+    }
+
+    // The start of the current lexeme's line, for error reports
+    private String errorLexeme() {
+        int max = Math.min(limit - start, ManualScanner.MAX_ERROR_LEXEME_LENGTH);
+        int n = 0;
+        while (n < max && buf[start + n] != '\n') n++;
+        String text = new String(buf, start, n);
+        boolean cut = n == ManualScanner.MAX_ERROR_LEXEME_LENGTH && start + n < limit && buf[start + n] != '\n';
+        return cut ? text + "..." : text;
+    }
+
+    private void advance(int n) {
+        for (int i = start, end = start + n; i < end; i++) {
+            if (buf[i] == '\n') {
+                line++;
+                col = 1;
+            } else {
+                col++;
+            }
+        }
+        start += n;
+    }
+
+    // Reads more input behind the current lexeme, moving it to the front of the buffer
+    // (or growing the buffer if the lexeme fills more than half of it, so a long one isn't
+    // moved again for every few chars read). False at end of input.
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        if (start > 0) {
+            System.arraycopy(buf, start, buf, 0, limit - start);
+            limit -= start;
+            base += start;
+            start = 0;
+        }
+        if (limit > buf.length / 2) buf = Arrays.copyOf(buf, buf.length * 2);
+        int n = reader.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            eof = true;
+            reader.close();
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    public static void main(String[] args) {
+        String fileToScan = "tests/test1.lang";
+        String grammar = null;
+        boolean compiled = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--grammar")) grammar = args[++i];
+            else if (args[i].equals("--compiled")) compiled = true;
+            else fileToScan = args[i];
+        }
+        System.out.println("Scanning file (generated DFA): " + fileToScan);
+
+        try {
+            LexerGenerator.Dfa dfa = (grammar != null) ? LexerGenerator.compile(Paths.get(grammar)) : defaultDfa();
+            DfaMatcher matcher = compiled ? DfaCompiler.compile(dfa) : dfa;
+            try (GeneratedScanner scanner = new GeneratedScanner(CompressedInput.open(fileToScan), dfa, matcher)) {
+                Map<TokenType, Integer> tokenCounts = new EnumMap<>(TokenType.class);
+                SymbolTable symTable = new SymbolTable();
+                int totalTokens = 0;
+
+                System.out.println("\n================ TOKEN OUTPUT ================");
+                Token t;
+                while ((t = scanner.nextToken()) != null) {
+                    System.out.println(t);
+                    totalTokens++;
+                    tokenCounts.merge(t.getType(), 1, Integer::sum);
+                    if (t.getType() == TokenType.IDENTIFIER) symTable.add(t.getLexeme(), "IDENTIFIER", t.getLine());
+                }
+
+                System.out.println("\n================ STATISTICS ================");
+                System.out.println("Total Tokens: " + totalTokens);
+                System.out.println("Lines Processed: " + scanner.getLineCount());
+                System.out.println("Comments Removed: " + scanner.getCommentCount());
+                System.out.println("\nToken Distribution:");
+                for (Map.Entry<TokenType, Integer> e : tokenCounts.entrySet()) {
+                    System.out.println("  " + e.getKey() + ": " + e.getValue());
+                }
+                symTable.printTable();
+                scanner.getErrorHandler().printErrors();
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package src;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Concurrent intern pool for identifier text, shared by any number of scanners. Each distinct
+// name gets a stable int id; tokens carry the id (Token.getSymbolId) and the pooled String, so
+// repeated identifiers share one String and compare by id.
+//
+// Lookups hash the scanner's char buffer directly, so a name that is already pooled costs no
+// allocation. Lookups don't lock; adding a new name takes the pool's lock.
+public class IdentifierPool {
+    private static final IdentifierPool SHARED = new IdentifierPool();
+
+    // Chains are immutable once published; new entries go in front
+    private static class Entry {
+        final String text;
+        final int hash;
+        final int id;
+        final Entry next;
+
+        Entry(String text, int hash, int id, Entry next) {
+            this.text = text;
+            this.hash = hash;
+            this.id = id;
+            this.next = next;
+        }
+    }
+
+    private volatile AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(1024); // power of two
+    private volatile String[] names = new String[1024];  // id -> text
+    private int size = 0; // guarded by this
+
+    // One pool for the whole process
+    public static IdentifierPool shared() {
+        return SHARED;
+    }
+
+    // Id of the text in chars[from, from + length), adding it if it is new
+    public int intern(char[] chars, int from, int length) {
+        int hash = 0;
+        for (int i = from; i < from + length; i++) {
+            hash = 31 * hash + chars[i]; // same as String.hashCode
+        }
+        AtomicReferenceArray<Entry> t = table;
+        Entry e = find(t.get(hash & (t.length() - 1)), hash, chars, from, length);
+        if (e != null) return e.id;
+        return add(hash, chars, from, length);
+    }
+
+    public int intern(String text) {
+        return intern(text.toCharArray(), 0, text.length());
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int add(int hash, char[] chars, int from, int length) {
+        AtomicReferenceArray<Entry> t = table;
+        int index = hash & (t.length() - 1);
+        Entry e = find(t.get(index), hash, chars, from, length); // another thread may have added it
+        if (e != null) return e.id;
+
+        String text = new String(chars, from, length);
+        int id = size++;
+        if (id == names.length) names = Arrays.copyOf(names, id * 2);
+        names[id] = text; // before the entry is published, so nameOf(id) works for every reader
+        t.set(index, new Entry(text, hash, id, t.get(index)));
+        if (size > t.length() * 3 / 4) resize(t);
+        return id;
+    }
+
+    // Rebuilds into a table twice the size; readers still on the old table see complete chains
+    private void resize(AtomicReferenceArray<Entry> old) {
+        AtomicReferenceArray<Entry> bigger = new AtomicReferenceArray<>(old.length() * 2);
+        for (int i = 0; i < old.length(); i++) {
+            for (Entry e = old.get(i); e != null; e = e.next) {
+                int index = e.hash & (bigger.length() - 1);
+                bigger.set(index, new Entry(e.text, e.hash, e.id, bigger.get(index)));
+            }
+        }
+        table = bigger;
+    }
+
+    private static Entry find(Entry e, int hash, char[] chars, int from, int length) {
+        for (; e != null; e = e.next) {
+            if (e.hash == hash && e.text.length() == length && matches(e.text, chars, from)) return e;
+        }
+        return null;
+    }
+
+    private static boolean matches(String text, char[] chars, int from) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) != chars[from + i]) return false;
+        }
+        return true;
+    }
+}
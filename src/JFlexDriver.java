@@ -1,16 +1,16 @@
 package src;
 
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 
 public class JFlexDriver {
     public static void main(String[] args) {
         String fileToScan = (args.length > 0) ? args[0] : "tests/test1.lang";
         System.out.println("Scanning file (JFlex): " + fileToScan);
 
-        try {
-            // Initialize JFlex Scanner (Yylex)
-            Yylex lexer = new Yylex(new FileReader(fileToScan));
+        // Initialize JFlex Scanner (Yylex); compressed inputs are decompressed on the fly
+        try (Reader in = CompressedInput.open(fileToScan)) {
+            Yylex lexer = new Yylex(in);
             Token t;
 
             System.out.println("\n================ TOKEN OUTPUT ================");
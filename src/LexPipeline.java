@@ -0,0 +1,150 @@
+package src;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Three-stage pipeline: a reader thread pulls characters from the input, a lexer thread runs
+// ManualScanner over them, and the calling thread consumes the tokens (printing, statistics,
+// symbol table). Stages are connected by SPSC rings of pre-allocated slots, so I/O, lexing and
+// output overlap instead of running one after another. If any stage fails, both rings are failed
+// so no stage stays blocked on another, and run() throws the first failure.
+public class LexPipeline {
+    private static final int CHUNK_SIZE = 8192;
+    private static final int CHUNK_SLOTS = 16;
+    private static final int TOKEN_SLOTS = 1024;
+
+    private static class Chunk {
+        final char[] data = new char[CHUNK_SIZE];
+        int length;
+    }
+
+    private static class TokenSlot {
+        Token token;
+    }
+
+    private final Reader input;
+    private final EnumSet<TokenType> wanted;
+    private final SpscRing<Chunk> chunks = new SpscRing<>(CHUNK_SLOTS, Chunk::new);
+    private final SpscRing<TokenSlot> tokens = new SpscRing<>(TOKEN_SLOTS, TokenSlot::new);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private ManualScanner scanner;
+
+    public LexPipeline(Reader input) {
+        this(input, EnumSet.allOf(TokenType.class));
+    }
+
+    // Only tokens of the wanted types are built and passed on (see ManualScanner.scan(EnumSet))
+    public LexPipeline(Reader input, EnumSet<TokenType> wanted) {
+        this.input = input;
+        this.wanted = wanted;
+    }
+
+    // Runs the pipeline, handing every token (without EOF) to the consumer on the calling thread.
+    // Returns the scanner so line/comment counts and errors can be read afterwards.
+    public ManualScanner run(Consumer<Token> consumer) throws IOException {
+        Thread reader = new Thread(this::readStage, "pipeline-reader");
+        Thread lexer = new Thread(this::lexStage, "pipeline-lexer");
+        reader.setDaemon(true);
+        lexer.setDaemon(true);
+        reader.start();
+        lexer.start();
+
+        try {
+            TokenSlot slot;
+            while ((slot = tokens.take()) != null) {
+                Token t = slot.token;
+                slot.token = null;
+                tokens.release();
+                consumer.accept(t);
+            }
+        } catch (RuntimeException | Error e) {
+            fail(e);
+        }
+
+        try {
+            reader.join();
+            lexer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for pipeline threads");
+        }
+        Throwable f = failure.get();
+        if (f instanceof IOException) throw (IOException) f;
+        if (f instanceof RuntimeException) throw (RuntimeException) f;
+        if (f instanceof Error) throw (Error) f;
+        return scanner;
+    }
+
+    // Records the first failure and fails both rings, waking any stage blocked on them. A stage
+    // woken this way fails too, but only the original cause is kept.
+    private void fail(Throwable cause) {
+        failure.compareAndSet(null, cause);
+        chunks.fail(cause);
+        tokens.fail(cause);
+    }
+
+    private void readStage() {
+        try (Reader in = input) {
+            while (true) {
+                Chunk chunk = chunks.claim();
+                int n = in.read(chunk.data, 0, CHUNK_SIZE);
+                if (n < 0) break;
+                chunk.length = n;
+                chunks.publish();
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            fail(e);
+        } finally {
+            chunks.close();
+        }
+    }
+
+    private void lexStage() {
+        try (ManualScanner s = new ManualScanner(new RingReader())) {
+            scanner = s;
+            s.setWantedTypes(wanted);
+            Token t;
+            while ((t = s.nextToken()) != null) {
+                TokenSlot slot = tokens.claim();
+                slot.token = t;
+                tokens.publish();
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            fail(e);
+        } finally {
+            tokens.close();
+        }
+    }
+
+    // Reader over the chunk ring, used by the lexer thread
+    private class RingReader extends Reader {
+        private Chunk current;
+        private int pos;
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (current == null) {
+                current = chunks.take();
+                pos = 0;
+                if (current == null) return -1; // a failed reader stage throws from take() instead
+            }
+            int n = Math.min(len, current.length - pos);
+            System.arraycopy(current.data, pos, cbuf, off, n);
+            pos += n;
+            if (pos == current.length) {
+                current = null;
+                chunks.release();
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,680 @@
+package src;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Builds the scanner DFA at runtime from the token rules in docs/LanguageGrammar.txt, so the
+// grammar file is the one source of truth. Each rule's regex is parsed and turned into an NFA
+// (Thompson construction), the combined NFA into a DFA (subset construction), and the DFA is
+// minimized (Moore partition refinement). Characters are first mapped to equivalence classes,
+// so a transition row has one entry per class instead of one per character.
+// GeneratedScanner runs the resulting tables.
+//
+// Regex syntax: | ( ) * + ? {m} {m,n} . [a-z] [^...] and \ escapes (\n \t \r, anything else literal).
+// A space outside [...] ends the regex; what follows is a description ("Regex: [ \t]+ (Skipped)").
+// Operators and punctuators are given as lists of literal strings. On a tie in match length the
+// rule listed first in the grammar wins.
+//
+// Usage: java src.LexerGenerator [grammar-file]   (prints a summary of the generated tables)
+public class LexerGenerator {
+    public static final String DEFAULT_GRAMMAR = "docs/LanguageGrammar.txt";
+    private static final int MAX_CHAR = 0xFFFF;
+
+    // "<section>/<label>" of each rule line in the grammar, and the token it produces
+    private static final Map<String, TokenType> TOKEN_RULES = new HashMap<>();
+    static {
+        TOKEN_RULES.put("KEYWORDS/Regex", TokenType.KEYWORD);
+        TOKEN_RULES.put("IDENTIFIERS/Regex", TokenType.IDENTIFIER);
+        TOKEN_RULES.put("LITERALS/Integer", TokenType.INTEGER_LITERAL);
+        TOKEN_RULES.put("LITERALS/Float", TokenType.FLOAT_LITERAL);
+        TOKEN_RULES.put("LITERALS/Boolean", TokenType.BOOLEAN_LITERAL);
+        TOKEN_RULES.put("LITERALS/String", TokenType.STRING_LITERAL);
+        TOKEN_RULES.put("LITERALS/Char", TokenType.CHAR_LITERAL);
+        TOKEN_RULES.put("OPERATORS/Arithmetic", TokenType.OPERATOR_ARITHMETIC);
+        TOKEN_RULES.put("OPERATORS/Relational", TokenType.OPERATOR_RELATIONAL);
+        TOKEN_RULES.put("OPERATORS/Logical", TokenType.OPERATOR_LOGICAL);
+        TOKEN_RULES.put("OPERATORS/Assignment", TokenType.OPERATOR_ASSIGNMENT);
+        TOKEN_RULES.put("OPERATORS/Inc/Dec", TokenType.OPERATOR_INC_DEC);
+        TOKEN_RULES.put("PUNCTUATORS/Symbols", TokenType.PUNCTUATOR);
+    }
+    private static final Set<String> COMMENT_RULES = Set.of("COMMENTS/Single-line", "COMMENTS/Multi-line");
+    private static final Set<String> SKIP_RULES = Set.of("WHITESPACE/Regex");
+    private static final Set<String> LITERAL_LIST_SECTIONS = Set.of("OPERATORS", "PUNCTUATORS");
+    private static final Set<String> DESCRIPTION_LABELS = Set.of("Rule", "Max Length");
+    private static final Pattern SECTION = Pattern.compile("\\d+\\.\\s+(\\S+).*");
+
+    public static void main(String[] args) throws IOException {
+        Path grammar = Paths.get(args.length > 0 ? args[0] : DEFAULT_GRAMMAR);
+        long started = System.nanoTime();
+        Dfa dfa = compile(grammar);
+        long ms = (System.nanoTime() - started) / 1_000_000;
+
+        System.out.println("Rules (in priority order):");
+        for (Rule r : dfa.rules) {
+            System.out.println("  " + r.name + " -> " + (r.type != null ? r.type : r.comment ? "comment" : "skipped"));
+        }
+        System.out.println("NFA states:              " + dfa.nfaStates);
+        System.out.println("DFA states:              " + dfa.unminimizedStates);
+        System.out.println("Minimized DFA states:    " + dfa.stateCount() + " (including the dead state)");
+        System.out.println("Character classes:       " + dfa.classCount);
+        System.out.println("Transition table:        " + (dfa.next.length * 2) + " bytes");
+        System.out.println("Generated in " + ms + " ms");
+    }
+
+    // One token rule of the grammar
+    public static class Rule {
+        public final String name;     // "<section>/<label>", e.g. "LITERALS/Float"
+        public final TokenType type;  // null for comments and whitespace, which produce no token
+        public final boolean comment;
+
+        Rule(String name, TokenType type, boolean comment) {
+            this.name = name;
+            this.type = type;
+            this.comment = comment;
+        }
+    }
+
+    // The generated tables, and match() to run them. State DEAD has no way out; every row of it is DEAD.
+    public static class Dfa implements DfaMatcher {
+        public static final int DEAD = 0;
+        public static final int START = 1;
+
+        public final Rule[] rules;
+        public final int classCount;
+        public final byte[] asciiClasses;  // class of each char below 128
+        public final char[] rangeStarts;   // chars from 128 up: class is rangeClasses[i] for the
+        public final byte[] rangeClasses;  //   last i with rangeStarts[i] <= c
+        public final short[] next;         // next[state * classCount + class]
+        public final byte[] accept;        // index of the rule each state accepts, or -1
+        public final byte[] onlyRule;      // the one rule a run in this state can still end in, or -1
+        final int nfaStates;
+        final int unminimizedStates;
+
+        Dfa(Rule[] rules, int classCount, byte[] asciiClasses, char[] rangeStarts, byte[] rangeClasses,
+            short[] next, byte[] accept, byte[] onlyRule, int nfaStates, int unminimizedStates) {
+            this.rules = rules;
+            this.classCount = classCount;
+            this.asciiClasses = asciiClasses;
+            this.rangeStarts = rangeStarts;
+            this.rangeClasses = rangeClasses;
+            this.next = next;
+            this.accept = accept;
+            this.onlyRule = onlyRule;
+            this.nfaStates = nfaStates;
+            this.unminimizedStates = unminimizedStates;
+        }
+
+        public int stateCount() { return accept.length; }
+
+        public int classOf(char c) {
+            if (c < 128) return asciiClasses[c];
+            int lo = 0, hi = rangeStarts.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (rangeStarts[mid] <= c) lo = mid;
+                else hi = mid - 1;
+            }
+            return rangeClasses[lo];
+        }
+
+        @Override
+        public long match(char[] buf, int p, int limit, int state, int rule, int end) {
+            final short[] next = this.next;
+            final byte[] accept = this.accept, asciiClasses = this.asciiClasses;
+            final int classCount = this.classCount;
+            while (p < limit) {
+                char c = buf[p];
+                int to = next[state * classCount + (c < 128 ? asciiClasses[c] : classOf(c))];
+                if (to == DEAD) return DfaMatcher.result(end, state, rule, false);
+                state = to;
+                p++;
+                if (accept[state] >= 0) {
+                    rule = accept[state];
+                    end = p;
+                }
+            }
+            return DfaMatcher.result(end, state, rule, true);
+        }
+    }
+
+    public static Dfa compile(Path grammar) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        List<Node> patterns = new ArrayList<>();
+        String section = null;
+        int lineNo = 0;
+        for (String raw : Files.readAllLines(grammar, StandardCharsets.UTF_8)) {
+            lineNo++;
+            String line = raw.trim();
+            Matcher heading = SECTION.matcher(line);
+            if (heading.matches()) {
+                section = heading.group(1);
+                continue;
+            }
+            int colon = line.indexOf(':');
+            if (section == null || colon < 0) continue; // title and other free text
+            String label = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            String name = section + "/" + label;
+            if (DESCRIPTION_LABELS.contains(label)) continue;
+
+            Rule rule;
+            if (TOKEN_RULES.containsKey(name)) rule = new Rule(name, TOKEN_RULES.get(name), false);
+            else if (COMMENT_RULES.contains(name)) rule = new Rule(name, null, true);
+            else if (SKIP_RULES.contains(name)) rule = new Rule(name, null, false);
+            else throw new IOException(grammar + ":" + lineNo + ": unknown rule " + name);
+
+            try {
+                patterns.add(LITERAL_LIST_SECTIONS.contains(section) ? literals(value) : new RegexParser(value).parse());
+            } catch (IllegalArgumentException e) {
+                throw new IOException(grammar + ":" + lineNo + ": " + e.getMessage());
+            }
+            rules.add(rule);
+        }
+        if (rules.isEmpty()) throw new IOException(grammar + ": no token rules found");
+        if (rules.size() > Byte.MAX_VALUE) throw new IOException(grammar + ": too many rules");
+        return build(rules.toArray(new Rule[0]), patterns);
+    }
+
+    // "+, -, **" or "( ) { } , ;": whitespace-separated literals, each optionally followed by a comma
+    private static Node literals(String list) {
+        List<Node> options = new ArrayList<>();
+        for (String item : list.split("\\s+")) {
+            if (item.length() > 1 && item.endsWith(",")) item = item.substring(0, item.length() - 1);
+            List<Node> chars = new ArrayList<>();
+            for (char c : item.toCharArray()) chars.add(new Chars(new int[] {c, c}));
+            options.add(chars.size() == 1 ? chars.get(0) : new Seq(chars));
+        }
+        return options.size() == 1 ? options.get(0) : new Alt(options);
+    }
+
+    // ---- Regex syntax tree ----
+
+    private abstract static class Node {}
+
+    private static class Chars extends Node {
+        final int[] ranges; // sorted, disjoint, inclusive lo/hi pairs
+
+        Chars(int[] ranges) {
+            this.ranges = ranges;
+        }
+    }
+
+    private static class Seq extends Node {
+        final List<Node> parts;
+
+        Seq(List<Node> parts) {
+            this.parts = parts;
+        }
+    }
+
+    private static class Alt extends Node {
+        final List<Node> options;
+
+        Alt(List<Node> options) {
+            this.options = options;
+        }
+    }
+
+    private static class Repeat extends Node {
+        final Node body;
+        final int min, max; // max -1: unbounded
+
+        Repeat(Node body, int min, int max) {
+            this.body = body;
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    private static class RegexParser {
+        private final String s;
+        private int pos = 0;
+
+        RegexParser(String s) {
+            this.s = s;
+        }
+
+        Node parse() {
+            Node n = alternation();
+            if (pos < s.length() && s.charAt(pos) != ' ') throw error("unexpected '" + s.charAt(pos) + "'");
+            return n;
+        }
+
+        private Node alternation() {
+            List<Node> options = new ArrayList<>();
+            options.add(sequence());
+            while (pos < s.length() && s.charAt(pos) == '|') {
+                pos++;
+                options.add(sequence());
+            }
+            return options.size() == 1 ? options.get(0) : new Alt(options);
+        }
+
+        private Node sequence() {
+            List<Node> parts = new ArrayList<>();
+            while (pos < s.length() && s.charAt(pos) != '|' && s.charAt(pos) != ')' && s.charAt(pos) != ' ') {
+                parts.add(repetition());
+            }
+            return parts.size() == 1 ? parts.get(0) : new Seq(parts);
+        }
+
+        private Node repetition() {
+            Node n = atom();
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c == '*') n = new Repeat(n, 0, -1);
+                else if (c == '+') n = new Repeat(n, 1, -1);
+                else if (c == '?') n = new Repeat(n, 0, 1);
+                else if (c == '{' && pos + 1 < s.length() && Character.isDigit(s.charAt(pos + 1))) {
+                    int close = s.indexOf('}', pos);
+                    if (close < 0) throw error("unclosed {");
+                    String[] bounds = s.substring(pos + 1, close).split(",", -1);
+                    int min = Integer.parseInt(bounds[0].trim());
+                    int max = bounds.length == 1 ? min : bounds[1].trim().isEmpty() ? -1 : Integer.parseInt(bounds[1].trim());
+                    if (max != -1 && max < min) throw error("bad repeat count");
+                    n = new Repeat(n, min, max);
+                    pos = close;
+                } else {
+                    break;
+                }
+                pos++;
+            }
+            return n;
+        }
+
+        private Node atom() {
+            if (pos == s.length()) throw error("unexpected end of regex");
+            char c = s.charAt(pos++);
+            switch (c) {
+                case '(': {
+                    Node n = alternation();
+                    if (pos == s.length() || s.charAt(pos) != ')') throw error("missing )");
+                    pos++;
+                    return n;
+                }
+                case '[': return charClass();
+                case '.': return new Chars(complement(new int[] {'\n', '\n'}));
+                case '\\': {
+                    char e = escape();
+                    return new Chars(new int[] {e, e});
+                }
+                case ')': case '*': case '+': case '?': case '|':
+                    throw error("unexpected '" + c + "'");
+                default:
+                    return new Chars(new int[] {c, c});
+            }
+        }
+
+        private Node charClass() {
+            boolean negate = pos < s.length() && s.charAt(pos) == '^';
+            if (negate) pos++;
+            List<int[]> ranges = new ArrayList<>();
+            while (true) {
+                if (pos == s.length()) throw error("unclosed [");
+                char c = s.charAt(pos++);
+                if (c == ']') break;
+                if (c == '\\') c = escape();
+                char hi = c;
+                if (pos + 1 < s.length() && s.charAt(pos) == '-' && s.charAt(pos + 1) != ']') {
+                    pos++;
+                    hi = s.charAt(pos++);
+                    if (hi == '\\') hi = escape();
+                    if (hi < c) throw error("bad range " + c + "-" + hi);
+                }
+                ranges.add(new int[] {c, hi});
+            }
+            int[] set = normalize(ranges);
+            return new Chars(negate ? complement(set) : set);
+        }
+
+        private char escape() {
+            if (pos == s.length()) throw error("trailing \\");
+            char e = s.charAt(pos++);
+            switch (e) {
+                case 'n': return '\n';
+                case 't': return '\t';
+                case 'r': return '\r';
+                case 'f': return '\f';
+                default:  return e;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " of " + s);
+        }
+    }
+
+    private static int[] normalize(List<int[]> ranges) {
+        ranges.sort(Comparator.comparingInt(r -> r[0]));
+        List<int[]> merged = new ArrayList<>();
+        for (int[] r : ranges) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && r[0] <= last[1] + 1) last[1] = Math.max(last[1], r[1]);
+            else merged.add(new int[] {r[0], r[1]});
+        }
+        int[] flat = new int[merged.size() * 2];
+        for (int i = 0; i < merged.size(); i++) {
+            flat[2 * i] = merged.get(i)[0];
+            flat[2 * i + 1] = merged.get(i)[1];
+        }
+        return flat;
+    }
+
+    private static int[] complement(int[] set) {
+        List<int[]> out = new ArrayList<>();
+        int from = 0;
+        for (int i = 0; i < set.length; i += 2) {
+            if (set[i] > from) out.add(new int[] {from, set[i] - 1});
+            from = set[i + 1] + 1;
+        }
+        if (from <= MAX_CHAR) out.add(new int[] {from, MAX_CHAR});
+        return normalize(out);
+    }
+
+    private static boolean contains(int[] set, int c) {
+        for (int i = 0; i < set.length; i += 2) {
+            if (c >= set[i] && c <= set[i + 1]) return true;
+        }
+        return false;
+    }
+
+    // ---- NFA ----
+
+    private static class NfaState {
+        final int id;
+        final List<NfaState> epsilon = new ArrayList<>(2);
+        int[] chars;        // the character edge, or null
+        NfaState target;
+        BitSet classes;     // chars as character classes
+        int accept = -1;
+
+        NfaState(int id) {
+            this.id = id;
+        }
+    }
+
+    private static class NfaBuilder {
+        final List<NfaState> states = new ArrayList<>();
+
+        NfaState state() {
+            NfaState s = new NfaState(states.size());
+            states.add(s);
+            return s;
+        }
+
+        // Builds a fragment for the node; returns {start, end}
+        NfaState[] fragment(Node node) {
+            NfaState start = state(), end = state();
+            if (node instanceof Chars) {
+                start.chars = ((Chars) node).ranges;
+                start.target = end;
+            } else if (node instanceof Seq) {
+                NfaState at = start;
+                for (Node part : ((Seq) node).parts) {
+                    NfaState[] f = fragment(part);
+                    at.epsilon.add(f[0]);
+                    at = f[1];
+                }
+                at.epsilon.add(end);
+            } else if (node instanceof Alt) {
+                for (Node option : ((Alt) node).options) {
+                    NfaState[] f = fragment(option);
+                    start.epsilon.add(f[0]);
+                    f[1].epsilon.add(end);
+                }
+            } else {
+                Repeat r = (Repeat) node;
+                NfaState at = start;
+                for (int i = 0; i < r.min; i++) {
+                    NfaState[] f = fragment(r.body);
+                    at.epsilon.add(f[0]);
+                    at = f[1];
+                }
+                if (r.max == -1) {
+                    NfaState[] f = fragment(r.body);
+                    at.epsilon.add(f[0]);
+                    f[1].epsilon.add(f[0]);
+                    f[1].epsilon.add(end);
+                } else {
+                    // each optional copy can skip straight to the end
+                    for (int i = r.min; i < r.max; i++) {
+                        NfaState[] f = fragment(r.body);
+                        at.epsilon.add(f[0]);
+                        at.epsilon.add(end);
+                        at = f[1];
+                    }
+                }
+                at.epsilon.add(end);
+            }
+            return new NfaState[] {start, end};
+        }
+    }
+
+    // ---- NFA -> DFA -> minimized DFA ----
+
+    private static Dfa build(Rule[] rules, List<Node> patterns) throws IOException {
+        NfaBuilder nfa = new NfaBuilder();
+        NfaState start = nfa.state();
+        for (int i = 0; i < patterns.size(); i++) {
+            NfaState[] f = nfa.fragment(patterns.get(i));
+            start.epsilon.add(f[0]);
+            f[1].accept = i;
+        }
+
+        // Character classes: split the char range at every boundary of every edge, then group the
+        // pieces that belong to exactly the same edges
+        List<NfaState> edges = new ArrayList<>();
+        TreeSet<Integer> cuts = new TreeSet<>();
+        cuts.add(0);
+        for (NfaState s : nfa.states) {
+            if (s.chars == null) continue;
+            edges.add(s);
+            for (int i = 0; i < s.chars.length; i += 2) {
+                cuts.add(s.chars[i]);
+                if (s.chars[i + 1] < MAX_CHAR) cuts.add(s.chars[i + 1] + 1);
+            }
+        }
+        int[] pieceStarts = cuts.stream().mapToInt(Integer::intValue).toArray();
+        int[] pieceClass = new int[pieceStarts.length];
+        Map<BitSet, Integer> classIds = new HashMap<>();
+        for (NfaState s : edges) s.classes = new BitSet();
+        for (int p = 0; p < pieceStarts.length; p++) {
+            BitSet signature = new BitSet();
+            for (int e = 0; e < edges.size(); e++) {
+                if (contains(edges.get(e).chars, pieceStarts[p])) signature.set(e);
+            }
+            Integer id = classIds.get(signature);
+            if (id == null) {
+                id = classIds.size();
+                classIds.put(signature, id);
+            }
+            pieceClass[p] = id;
+            for (int e = signature.nextSetBit(0); e >= 0; e = signature.nextSetBit(e + 1)) edges.get(e).classes.set(id);
+        }
+        int classCount = classIds.size();
+
+        // Subset construction; DFA state 0 is the empty set (dead), 1 the start
+        List<BitSet> sets = new ArrayList<>();
+        Map<BitSet, Integer> setIds = new HashMap<>();
+        List<int[]> rows = new ArrayList<>();
+        addSet(new BitSet(), sets, setIds);
+        BitSet initial = new BitSet();
+        initial.set(start.id);
+        addSet(closure(initial, nfa.states), sets, setIds);
+        for (int d = 0; d < sets.size(); d++) {
+            BitSet set = sets.get(d);
+            int[] row = new int[classCount];
+            for (int c = 0; c < classCount; c++) {
+                BitSet moved = new BitSet();
+                for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+                    NfaState s = nfa.states.get(i);
+                    if (s.classes != null && s.classes.get(c)) moved.set(s.target.id);
+                }
+                row[c] = addSet(closure(moved, nfa.states), sets, setIds);
+            }
+            rows.add(row);
+        }
+        int[] accepts = new int[sets.size()];
+        for (int d = 0; d < sets.size(); d++) {
+            accepts[d] = -1;
+            BitSet set = sets.get(d);
+            for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+                int a = nfa.states.get(i).accept;
+                if (a >= 0 && (accepts[d] < 0 || a < accepts[d])) accepts[d] = a;
+            }
+        }
+
+        // Moore minimization: start from "same accepted rule", split blocks whose states go to
+        // different blocks on some class, until nothing splits
+        int n = rows.size();
+        int[] block = new int[n];
+        int blocks = renumber(n, s -> Collections.singletonList(accepts[s]), block);
+        while (true) {
+            int[] previous = block.clone();
+            int count = renumber(n, s -> {
+                List<Integer> key = new ArrayList<>(classCount + 1);
+                key.add(previous[s]);
+                for (int t : rows.get(s)) key.add(previous[t]);
+                return key;
+            }, block);
+            if (count == blocks) break;
+            blocks = count;
+        }
+
+        // Renumber blocks so the dead state's block is DEAD and the start state's is START
+        int[] order = new int[blocks];
+        Arrays.fill(order, -1);
+        order[block[0]] = Dfa.DEAD;
+        int nextId = 1;
+        if (order[block[1]] < 0) order[block[1]] = nextId++;
+        for (int s = 0; s < n; s++) {
+            if (order[block[s]] < 0) order[block[s]] = nextId++;
+        }
+        int[][] minRows = new int[blocks][];
+        byte[] minAccept = new byte[blocks];
+        for (int s = 0; s < n; s++) {
+            int b = order[block[s]];
+            if (minRows[b] != null) continue;
+            minRows[b] = new int[classCount];
+            for (int c = 0; c < classCount; c++) minRows[b][c] = order[block[rows.get(s)[c]]];
+            minAccept[b] = (byte) accepts[s];
+        }
+        if (blocks > Short.MAX_VALUE) throw new IOException("Grammar needs " + blocks + " DFA states, more than the table format allows");
+
+        // Classes that the minimized DFA treats identically (same column everywhere) are merged
+        int[] classMap = new int[classCount];
+        Map<List<Integer>, Integer> columns = new HashMap<>();
+        for (int c = 0; c < classCount; c++) {
+            List<Integer> column = new ArrayList<>(blocks);
+            for (int[] row : minRows) column.add(row[c]);
+            Integer id = columns.get(column);
+            if (id == null) {
+                id = columns.size();
+                columns.put(column, id);
+            }
+            classMap[c] = id;
+        }
+        int merged = columns.size();
+        if (merged > Byte.MAX_VALUE) throw new IOException("Grammar needs " + merged + " character classes, more than the table format allows");
+        short[] next = new short[blocks * merged];
+        for (int b = 0; b < blocks; b++) {
+            for (int c = 0; c < classCount; c++) next[b * merged + classMap[c]] = (short) minRows[b][c];
+        }
+
+        // Char -> class lookup: a direct table for ASCII, ranges for the rest
+        byte[] ascii = new byte[128];
+        List<int[]> ranges = new ArrayList<>();
+        for (int p = 0; p < pieceStarts.length; p++) {
+            int from = pieceStarts[p];
+            int to = (p + 1 < pieceStarts.length) ? pieceStarts[p + 1] - 1 : MAX_CHAR;
+            int cls = classMap[pieceClass[p]];
+            for (int c = from; c <= Math.min(to, 127); c++) ascii[c] = (byte) cls;
+            if (to < 128) continue;
+            from = Math.max(from, 128);
+            if (ranges.isEmpty() || ranges.get(ranges.size() - 1)[1] != cls) ranges.add(new int[] {from, cls});
+        }
+        char[] rangeStarts = new char[ranges.size()];
+        byte[] rangeClasses = new byte[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            rangeStarts[i] = (char) ranges.get(i)[0];
+            rangeClasses[i] = (byte) ranges.get(i)[1];
+        }
+
+        return new Dfa(rules, merged, ascii, rangeStarts, rangeClasses, next, minAccept, onlyRule(minRows, minAccept),
+                       nfa.states.size(), n);
+    }
+
+    // For each state, the rule its runs can still accept if that is a single one: the rules
+    // accepted anywhere reachable from a state, propagated backwards until nothing changes
+    private static byte[] onlyRule(int[][] rows, byte[] accept) {
+        BitSet[] reachable = new BitSet[rows.length];
+        for (int s = 0; s < rows.length; s++) {
+            reachable[s] = new BitSet();
+            if (accept[s] >= 0) reachable[s].set(accept[s]);
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int s = 0; s < rows.length; s++) {
+                int before = reachable[s].cardinality();
+                for (int t : rows[s]) reachable[s].or(reachable[t]);
+                changed |= reachable[s].cardinality() != before;
+            }
+        }
+        byte[] only = new byte[rows.length];
+        for (int s = 0; s < rows.length; s++) {
+            only[s] = (byte) (reachable[s].cardinality() == 1 ? reachable[s].nextSetBit(0) : -1);
+        }
+        return only;
+    }
+
+    private static int addSet(BitSet set, List<BitSet> sets, Map<BitSet, Integer> ids) {
+        Integer id = ids.get(set);
+        if (id == null) {
+            id = sets.size();
+            sets.add(set);
+            ids.put(set, id);
+        }
+        return id;
+    }
+
+    private static BitSet closure(BitSet set, List<NfaState> states) {
+        BitSet result = (BitSet) set.clone();
+        Deque<NfaState> stack = new ArrayDeque<>();
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) stack.push(states.get(i));
+        while (!stack.isEmpty()) {
+            for (NfaState t : stack.pop().epsilon) {
+                if (!result.get(t.id)) {
+                    result.set(t.id);
+                    stack.push(t);
+                }
+            }
+        }
+        return result;
+    }
+
+    private interface KeyFunction {
+        List<Integer> key(int state);
+    }
+
+    // Gives every state the id of its key (ids in order of first appearance); returns the number of ids
+    private static int renumber(int n, KeyFunction keys, int[] ids) {
+        Map<List<Integer>, Integer> seen = new HashMap<>();
+        for (int s = 0; s < n; s++) {
+            List<Integer> key = keys.key(s);
+            Integer id = seen.get(key);
+            if (id == null) {
+                id = seen.size();
+                seen.put(key, id);
+            }
+            ids[s] = id;
+        }
+        return seen.size();
+    }
+}
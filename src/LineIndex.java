@@ -0,0 +1,69 @@
+package src;
+
+import java.util.Arrays;
+
+// Compact index of line start offsets, used to turn a character offset into line/column
+// on demand (binary search) instead of tracking both on every character.
+// Offsets are longs, but a start is stored as its low 32 bits: wraps records the lines at which
+// the high bits go up, so inputs past 2^32 chars resolve correctly at 4 bytes per line.
+public class LineIndex {
+    private int[] starts = new int[64];
+    private int count = 0;
+    private int[] wraps = new int[0]; // wraps[k]: first line (index) starting at or past (k + 1) << 32
+
+    public LineIndex() {
+        starts[count++] = 0; // line 1 always starts at offset 0
+    }
+
+    // Builds the index for a whole input in one pass over its newlines.
+    public static LineIndex of(String text) {
+        LineIndex index = new LineIndex();
+        int nl = text.indexOf('\n');
+        while (nl != -1) {
+            index.addLineStart(nl + 1);
+            nl = text.indexOf('\n', nl + 1);
+        }
+        return index;
+    }
+
+    // Records that a new line starts at the given offset. Offsets must be added in increasing order.
+    public void addLineStart(long offset) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+        }
+        while ((offset >>> 32) > wraps.length) {
+            wraps = Arrays.copyOf(wraps, wraps.length + 1);
+            wraps[wraps.length - 1] = count;
+        }
+        starts[count++] = (int) offset;
+    }
+
+    public int getLineCount() { return count; }
+
+    // 1-based line containing the offset
+    public int lineOf(long offset) {
+        int lo = 0, hi = count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (start(mid) <= offset) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo + 1;
+    }
+
+    // 1-based column of the offset within its line
+    public int columnOf(long offset) {
+        return (int) (offset - start(lineOf(offset) - 1) + 1);
+    }
+
+    // Offset at which the given 1-based line starts
+    public long lineStart(int line) {
+        return start(line - 1);
+    }
+
+    private long start(int i) {
+        long high = 0;
+        while (high < wraps.length && wraps[(int) high] <= i) high++;
+        return (high << 32) | (starts[i] & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,243 @@
+package src;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// End-to-end benchmark of the full drivers (load, scan, symbol table, statistics, errors, with
+// output going to a null sink) over a generated corpus. Every run is a fresh child JVM, which
+// reports its own wall time, GC time and peak RSS. Results can be saved as a JSON baseline and
+// compared against an earlier one; a metric that is worse by more than the tolerance fails the run.
+//
+// Usage: java src.MacroBenchmark [--size-mb N] [--runs N] [--save baseline.json]
+//                                [--compare baseline.json] [--tolerance PERCENT]
+public class MacroBenchmark {
+    private static final String[] DRIVERS = {"src.Main", "src.JFlexDriver", "src.GeneratedScanner"};
+    private static final double GC_NOISE_MS = 20; // GC time differences below this are ignored
+
+    // Metric names as stored in the baseline, and whether a higher value is better
+    private static final String[] METRICS = {"wallMs", "processMs", "throughputMBs", "peakRssKb", "gcMs"};
+    private static final boolean[] HIGHER_IS_BETTER = {false, false, true, false, false};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 4 && args[0].equals("--child")) {
+            child(args[1], args[2], Paths.get(args[3]));
+            return;
+        }
+
+        int sizeMb = 8, runs = 5;
+        double tolerance = 10;
+        String save = null, compare = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size-mb": sizeMb = Integer.parseInt(args[++i]); break;
+                case "--runs": runs = Integer.parseInt(args[++i]); break;
+                case "--save": save = args[++i]; break;
+                case "--compare": compare = args[++i]; break;
+                case "--tolerance": tolerance = Double.parseDouble(args[++i]); break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        Path corpus = Files.createTempFile("macro-corpus", ".lang");
+        Map<String, Map<String, Double>> results = new LinkedHashMap<>();
+        try {
+            long corpusBytes = writeCorpus(Paths.get("tests"), corpus, (long) sizeMb << 20);
+            System.out.printf("Corpus: %.1f MB, median of %d runs per driver%n%n", corpusBytes / 1e6, runs);
+            System.out.printf("%-22s %10s %10s %12s %12s %10s%n", "Driver", "wall ms", "process ms", "MB/s", "peak RSS KB", "GC ms");
+            for (String driver : DRIVERS) {
+                Map<String, Double> r = measure(driver, corpus, corpusBytes, runs);
+                results.put(driver, r);
+                System.out.printf("%-22s %10.1f %10.1f %12.1f %12.0f %10.1f%n", driver, r.get("wallMs"), r.get("processMs"),
+                                  r.get("throughputMBs"), r.get("peakRssKb"), r.get("gcMs"));
+            }
+            results.put("corpus", Collections.singletonMap("bytes", (double) corpusBytes));
+        } finally {
+            Files.deleteIfExists(corpus);
+        }
+
+        if (save != null) {
+            Files.write(Paths.get(save), toJson(results).getBytes(StandardCharsets.UTF_8));
+            System.out.println("\nBaseline saved to " + save);
+        }
+        if (compare != null) {
+            Map<String, Map<String, Double>> baseline = fromJson(new String(Files.readAllBytes(Paths.get(compare)), StandardCharsets.UTF_8));
+            if (!compare(baseline, results, tolerance)) System.exit(1);
+        }
+    }
+
+    // Runs the driver in child JVMs and returns the median of each metric (peak RSS: the maximum)
+    private static Map<String, Double> measure(String driver, Path corpus, long corpusBytes, int runs) throws IOException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Path metrics = Files.createTempFile("macro-metrics", ".txt");
+        try {
+            List<String> cmd = Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+                                             "src.MacroBenchmark", "--child", driver, corpus.toString(), metrics.toString());
+            runChild(cmd); // warm the file system cache
+
+            double[] wall = new double[runs], process = new double[runs], gc = new double[runs];
+            double peakRss = 0;
+            for (int i = 0; i < runs; i++) {
+                process[i] = runChild(cmd) / 1e6;
+                String[] m = new String(Files.readAllBytes(metrics), StandardCharsets.UTF_8).trim().split(" ");
+                wall[i] = Double.parseDouble(m[0]);
+                gc[i] = Double.parseDouble(m[1]);
+                peakRss = Math.max(peakRss, Double.parseDouble(m[2]));
+            }
+            Map<String, Double> r = new LinkedHashMap<>();
+            r.put("wallMs", median(wall));
+            r.put("processMs", median(process));
+            r.put("throughputMBs", corpusBytes / 1e6 / (median(wall) / 1e3));
+            r.put("peakRssKb", peakRss);
+            r.put("gcMs", median(gc));
+            return r;
+        } finally {
+            Files.deleteIfExists(metrics);
+        }
+    }
+
+    private static long runChild(List<String> cmd) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process p = new ProcessBuilder(cmd)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        int exit = p.waitFor();
+        long elapsed = System.nanoTime() - start;
+        if (exit != 0) throw new IOException("Child JVM failed (exit " + exit + "): " + String.join(" ", cmd));
+        return elapsed;
+    }
+
+    // Child side: runs the driver with all output discarded, then writes "wallMs gcMs peakRssKb"
+    private static void child(String driver, String file, Path metrics) throws Exception {
+        PrintStream nullSink = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(nullSink);
+        System.setErr(nullSink);
+
+        long start = System.nanoTime();
+        try {
+            Class.forName(driver).getMethod("main", String[].class).invoke(null, (Object) new String[] {file});
+        } catch (InvocationTargetException e) {
+            throw new IOException(driver + " failed", e.getCause());
+        }
+        double wallMs = (System.nanoTime() - start) / 1e6;
+
+        long gcMs = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcMs += Math.max(0, gc.getCollectionTime());
+        }
+        Files.write(metrics, (wallMs + " " + gcMs + " " + peakRssKb()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // High-water mark of the resident set from /proc; falls back to committed heap elsewhere
+    private static long peakRssKb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not Linux
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getCommitted() / 1024;
+    }
+
+    // Prints every metric against the baseline; returns false if any got worse than the tolerance allows
+    private static boolean compare(Map<String, Map<String, Double>> baseline, Map<String, Map<String, Double>> current, double tolerance) {
+        System.out.printf("%nComparison with baseline (tolerance %.0f%%)%n", tolerance);
+        Double baseBytes = baseline.containsKey("corpus") ? baseline.get("corpus").get("bytes") : null;
+        if (baseBytes == null || !baseBytes.equals(current.get("corpus").get("bytes"))) {
+            System.out.println("  Warning: baseline was recorded on a different corpus size");
+        }
+        boolean ok = true;
+        for (String driver : DRIVERS) {
+            Map<String, Double> base = baseline.get(driver);
+            if (base == null) {
+                System.out.println("  " + driver + ": not in baseline");
+                continue;
+            }
+            for (int i = 0; i < METRICS.length; i++) {
+                Double before = base.get(METRICS[i]);
+                double now = current.get(driver).get(METRICS[i]);
+                if (before == null || before == 0) continue;
+                double change = (now - before) / before * 100;
+                boolean worse = HIGHER_IS_BETTER[i] ? change < -tolerance : change > tolerance;
+                if (METRICS[i].equals("gcMs") && Math.abs(now - before) < GC_NOISE_MS) worse = false;
+                ok &= !worse;
+                System.out.printf("  %-20s %-14s %12.1f -> %12.1f  %+7.1f%%  %s%n", driver, METRICS[i], before, now, change,
+                                  worse ? "REGRESSION" : "ok");
+            }
+        }
+        System.out.println(ok ? "\nWithin tolerance." : "\nRegression against baseline.");
+        return ok;
+    }
+
+    private static String toJson(Map<String, Map<String, Double>> results) {
+        StringBuilder sb = new StringBuilder("{\n");
+        int n = 0;
+        for (Map.Entry<String, Map<String, Double>> e : results.entrySet()) {
+            sb.append("  \"").append(e.getKey()).append("\": {");
+            int m = 0;
+            for (Map.Entry<String, Double> metric : e.getValue().entrySet()) {
+                sb.append(m++ > 0 ? ", " : "").append('"').append(metric.getKey()).append("\": ")
+                  .append(String.format(Locale.ROOT, "%.3f", metric.getValue()));
+            }
+            sb.append(++n < results.size() ? "},\n" : "}\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    // Reads the flat two-level objects written by toJson
+    private static Map<String, Map<String, Double>> fromJson(String json) {
+        Map<String, Map<String, Double>> results = new LinkedHashMap<>();
+        Matcher group = Pattern.compile("\"([^\"]+)\"\\s*:\\s*\\{([^}]*)\\}").matcher(json);
+        while (group.find()) {
+            Map<String, Double> metrics = new LinkedHashMap<>();
+            Matcher metric = Pattern.compile("\"([^\"]+)\"\\s*:\\s*(-?[0-9.eE+-]+)").matcher(group.group(2));
+            while (metric.find()) {
+                metrics.put(metric.group(1), Double.parseDouble(metric.group(2)));
+            }
+            results.put(group.group(1), metrics);
+        }
+        return results;
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    // The test programs repeated up to the requested size, so runs are comparable across machines
+    private static long writeCorpus(Path dir, Path target, long size) throws IOException {
+        StringBuilder programs = new StringBuilder();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.lang")) {
+            List<Path> sorted = new ArrayList<>();
+            files.forEach(sorted::add);
+            sorted.sort(null);
+            for (Path p : sorted) programs.append(new String(Files.readAllBytes(p), StandardCharsets.UTF_8)).append('\n');
+        }
+        if (programs.length() == 0) throw new IOException("No .lang files in " + dir);
+        byte[] chunk = programs.toString().getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = Files.newOutputStream(target)) {
+            long written = 0;
+            while (written < size) {
+                out.write(chunk);
+                written += chunk.length;
+            }
+            return written;
+        }
+    }
+}
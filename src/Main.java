@@ -1,40 +1,71 @@
 package src;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.HashMap;
 
 public class Main {
+    private static final String USAGE = "Usage: java src.Main [--pipeline] [--stats] [--validate] [--only=TYPE,...] [file]";
+
+    // Statistics counters
+    private static int totalTokens = 0;
+    private static Map<TokenType, Integer> tokenCounts = new HashMap<>();
+    private static SymbolTable symTable = new SymbolTable();
+
     public static void main(String[] args) {
         // Default to test1.lang if no argument provided
-        String fileToScan = (args.length > 0) ? args[0] : "tests/test1.lang";
+        String fileToScan = "tests/test1.lang";
+        boolean pipeline = false; // --pipeline: read, lex and print on separate threads
+        EnumSet<TokenType> only = EnumSet.allOf(TokenType.class); // --only=IDENTIFIER,KEYWORD,...
+        boolean statsOnly = false; // --stats: statistics and errors, no tokens
+        boolean validateOnly = false; // --validate: stop at the first error, exit status 1 on failure
+        for (String arg : args) {
+            if (arg.equals("--pipeline")) pipeline = true;
+            else if (arg.equals("--stats")) statsOnly = true;
+            else if (arg.equals("--validate")) validateOnly = true;
+            else if (arg.startsWith("--only=")) {
+                try {
+                    only = parseTypes(arg.substring("--only=".length()));
+                } catch (IllegalArgumentException e) {
+                    usageError(e.getMessage());
+                }
+            }
+            else if (arg.startsWith("--")) usageError("Unknown option: " + arg);
+            else fileToScan = arg;
+        }
 
         System.out.println("Scanning file: " + fileToScan);
 
         try {
-            ManualScanner scanner = new ManualScanner(fileToScan);
-            List<Token> tokens = scanner.scan();
-            SymbolTable symTable = new SymbolTable();
-            
-            // Statistics counters
-            int totalTokens = 0;
-            Map<TokenType, Integer> tokenCounts = new HashMap<>();
-
-            System.out.println("\n================ TOKEN OUTPUT ================");
-            for (Token t : tokens) {
-                if (t.getType() == TokenType.EOF) break;
-                
-                // 1. Print Token in required format
-                System.out.println(t); 
-                
-                // 2. Update Stats
-                totalTokens++;
-                tokenCounts.put(t.getType(), tokenCounts.getOrDefault(t.getType(), 0) + 1);
-
-                // 3. Update Symbol Table (Identifiers only)
-                if (t.getType() == TokenType.IDENTIFIER) {
-                    symTable.add(t.getLexeme(), "IDENTIFIER", t.getLine());
+            ManualScanner scanner;
+            if (validateOnly) {
+                boolean valid;
+                try (ManualScanner validator = new ManualScanner(fileToScan)) { // validate() stops early
+                    valid = validator.validate();
+                    System.out.println(valid ? "PASS" : "FAIL");
+                    validator.getErrorHandler().printErrors();
+                }
+                if (!valid) System.exit(1);
+                return;
+            } else if (statsOnly) {
+                try (ManualScanner counter = new ManualScanner(fileToScan)) {
+                    scanner = counter;
+                    for (Map.Entry<TokenType, Integer> e : counter.countTokens().entrySet()) {
+                        totalTokens += e.getValue();
+                        tokenCounts.put(e.getKey(), e.getValue());
+                    }
+                }
+            } else if (pipeline) {
+                System.out.println("\n================ TOKEN OUTPUT ================");
+                scanner = new LexPipeline(CompressedInput.open(fileToScan), only).run(Main::process);
+            } else {
+                // Printing, counting and symbol collection all happen during the one scan pass
+                try (ManualScanner printer = new ManualScanner(fileToScan)) {
+                    scanner = printer;
+                    printer.setWantedTypes(only);
+                    System.out.println("\n================ TOKEN OUTPUT ================");
+                    printer.scan(Main::process);
                 }
             }
 
@@ -50,7 +81,7 @@ public class Main {
             }
             
             // 5. Print Symbol Table
-            symTable.printTable();
+            if (!statsOnly) symTable.printTable();
 
             // 6. Print Errors (NEW)
             scanner.getErrorHandler().printErrors();
@@ -59,4 +90,37 @@ public class Main {
             System.err.println("Error reading file: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private static void usageError(String message) {
+        System.err.println(message);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    private static EnumSet<TokenType> parseTypes(String list) {
+        EnumSet<TokenType> types = EnumSet.noneOf(TokenType.class);
+        for (String name : list.split(",")) {
+            try {
+                types.add(TokenType.valueOf(name.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown token type in --only: \"" + name.trim() + "\" (known: "
+                                                   + EnumSet.allOf(TokenType.class) + ")");
+            }
+        }
+        return types;
+    }
+
+    private static void process(Token t) {
+        // 1. Print Token in required format
+        System.out.println(t); 
+        
+        // 2. Update Stats
+        totalTokens++;
+        tokenCounts.put(t.getType(), tokenCounts.getOrDefault(t.getType(), 0) + 1);
+
+        // 3. Update Symbol Table (Identifiers only)
+        if (t.getType() == TokenType.IDENTIFIER) {
+            symTable.add(t.getLexeme(), "IDENTIFIER", t.getLine());
+        }
+    }
+}
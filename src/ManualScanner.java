@@ -1,42 +1,250 @@
 package src;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.*;
 
-public class ManualScanner {
-    private String input;
-    private int pos = 0;
+public class ManualScanner implements TokenSource {
+    // The input is read through a sliding window: only the unread part and the lexeme in
+    // progress (pinned by mark) are kept, so files larger than the heap can be scanned.
+    private Reader reader;
+    private char[] buf = new char[WINDOW_SIZE];
+    private int limit = 0;        // number of valid chars in buf
+    private long base = 0;        // input offset of buf[0]
+    private int pos = 0;          // current index into buf
+    private int mark = -1;        // index in buf where the pinned lexeme starts, -1 if none
+    private String droppedPrefix; // first chars of a pinned lexeme that outgrew MAX_PIN
+    private boolean eof = false;
+    private boolean pendingCR = false;
+    private char lastChar = '\n';
     private int line = 1;
     private int col = 1;
     private int commentCount = 0;
     private List<Token> tokens = new ArrayList<>();
     private ErrorHandler errorHandler = new ErrorHandler(); // NEW: Error Handler
+    private boolean lazyPositions = false; // track offsets only; line/col come from lineIndex
+    private LineIndex lineIndex;
+    private long unclosedCommentFrom = Long.MAX_VALUE; // no "*#" exists after a "#*" starting here
+    private long closerFreeTo = 0;     // no "*#" starts between the last comment's body and here
+    private EnumSet<TokenType> wanted = EnumSet.allOf(TokenType.class); // token types that get built
+    private final int[] typeCounts = new int[TokenType.values().length]; // every recognized token, built or not
+    private boolean stopAtFirstError = false;
+    private long charsExamined = 0; // chars stepped over, searched ahead or moved in the window
+
+    // Checkpoints are taken at the first line start after every checkpointInterval lines
+    private int checkpointInterval = 0;
+    private int nextCheckpointLine = Integer.MAX_VALUE;
+    private List<Checkpoint> checkpoints = new ArrayList<>();
+    private long[] drops = new long[16]; // offsets where the \n of a \r\n was dropped (only with trackDrops)
+    private int dropCount = 0;
+    private boolean trackDrops = false;  // checkpoints or rawOffset() need the drops
+    private long dropsBefore = 0;        // dropped chars before drops[0]
+    private Checkpoint resumeComment;    // resumed inside a multi-line comment
+    private TokenListener listener;      // set during scan(TokenListener)
+    private IdentifierPool identifierPool; // interns identifiers when set
     
     private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
         "start", "finish", "loop", "condition", "declare", "output", "input", 
         "function", "return", "break", "continue", "else"
     ));
-    private static final Set<String> BOOLEANS = new HashSet<>(Arrays.asList("true", "false"));
 
+    // Powers of ten that are exact as doubles (10^22 is the largest)
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_MANTISSA_DIGITS = 18; // always fits in a long
+
+    // Resource limits for untrusted input. Every path below is linear in the input;
+    // these bound how much text a single token or error keeps in memory.
+    public static final int MAX_LEXEME_LENGTH = 1024;       // identifiers, numbers
+    public static final int MAX_STRING_LENGTH = 65536;      // string literal incl. quotes
+    public static final int MAX_COMMENT_LENGTH = 65536;     // multi-line comment incl. delimiters
+    public static final int MAX_ERROR_LEXEME_LENGTH = 64;   // error reports keep only a prefix
+
+    private static final int WINDOW_SIZE = 64 * 1024;
+    private static final int MAX_PIN = MAX_STRING_LENGTH;   // longest lexeme kept in the window
+
+    // Compressed files (.gz, .zip, ...) are decompressed on the fly, see CompressedInput
     public ManualScanner(String filePath) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line).append("\n");
+        this(CompressedInput.open(filePath));
+    }
+
+    // Input is read lazily while scanning. Line endings are normalized to \n and a final
+    // newline is added, as the earlier readLine()-based loading did.
+    public ManualScanner(Reader reader) throws IOException {
+        this.reader = reader;
+    }
+
+    // The input is closed once it is read to the end; this closes it for callers that stop
+    // before (validate(), an error, an abandoned cursor or subscription)
+    @Override
+    public void close() throws IOException {
+        eof = true;
+        reader.close();
+    }
+
+    // Starts scanning at a checkpoint taken by an earlier scan of the same input
+    public ManualScanner(String filePath, Checkpoint from) throws IOException {
+        this(CompressedInput.open(filePath), from);
+    }
+
+    // The reader is positioned at the checkpoint by skipping (not scanning) the text before it
+    public ManualScanner(Reader reader, Checkpoint from) throws IOException {
+        this(reader);
+        long remaining = from.rawOffset;
+        try {
+            while (remaining > 0) {
+                long skipped = reader.skip(remaining);
+                if (skipped <= 0) {
+                    if (reader.read() < 0) throw new IOException("Input ends before checkpoint at offset " + from.rawOffset);
+                    skipped = 1;
+                }
+                remaining -= skipped;
             }
+        } catch (IOException e) {
+            reader.close(); // no scanner is returned to close it
+            throw e;
         }
-        this.input = sb.toString();
+        base = from.offset;
+        dropsBefore = from.rawOffset - from.offset;
+        line = from.line;
+        commentCount = from.commentCount;
+        unclosedCommentFrom = from.unclosedCommentFrom;
+        if (from.inComment) resumeComment = from;
     }
 
-    public int getLineCount() { return line; }
+    // lazyPositions = true skips per-character line/column tracking. Tokens then carry only
+    // their offset and resolve line/column through the line index when asked.
+    public ManualScanner(String filePath, boolean lazyPositions) throws IOException {
+        this(filePath);
+        this.lazyPositions = lazyPositions;
+    }
+
+    public int getLineCount() { return lazyPositions ? getLineIndex().getLineCount() : line; }
     public int getCommentCount() { return commentCount; }
     public ErrorHandler getErrorHandler() { return errorHandler; } // NEW: Expose handler
 
-    public List<Token> scan() {
-        while (pos < input.length()) {
+    // Takes a checkpoint roughly every `lines` lines, for restarting the scan later
+    // (viewport lexing, resuming an interrupted scan). Needs exact positions, not lazyPositions.
+    public void setCheckpointInterval(int lines) {
+        if (lazyPositions) throw new IllegalStateException("Checkpoints need line tracking; lazyPositions is on");
+        if (lines <= 0) throw new IllegalArgumentException("Checkpoint interval must be positive: " + lines);
+        if (limit > 0 || eof) throw new IllegalStateException("Set the checkpoint interval before scanning");
+        checkpointInterval = lines;
+        nextCheckpointLine = line + lines;
+        trackDrops = true;
+    }
+
+    public List<Checkpoint> getCheckpoints() { return checkpoints; }
+
+    // Keeps track of where \r\n normalization dropped a char, so rawOffset() can map offsets
+    // back into the input as read. Set before scanning.
+    public void setRawOffsets() {
+        if (limit > 0 || eof) throw new IllegalStateException("Enable raw offsets before scanning");
+        trackDrops = true;
+    }
+
+    // Offset in the input as read (before \r\n became \n) of a scanner offset such as
+    // Token.getOffset(). Valid for the token just returned and anything after it.
+    public long rawOffset(long offset) {
+        if (!trackDrops) throw new IllegalStateException("Raw offsets are not tracked; call setRawOffsets() first");
+        if (offset < base) throw new IllegalArgumentException("Offset " + offset + " is behind the window");
+        return offset + dropsUpTo(offset);
+    }
+
+    // Work done so far, independent of the clock: a linear scan examines each input char a
+    // bounded number of times (see PathologicalInputs)
+    long getCharsExamined() { return charsExamined; }
+
+    // Identifiers are looked up in the pool (usually IdentifierPool.shared()) straight from the
+    // input buffer; their tokens then share the pooled String and carry its id.
+    public void setIdentifierPool(IdentifierPool pool) {
+        identifierPool = pool;
+    }
+
+    // Only tokens of the given types are built. The others are still recognized (and their
+    // errors reported) but get no lexeme, Token object or list entry. EOF is always added.
+    public List<Token> scan(EnumSet<TokenType> types) throws IOException {
+        setWantedTypes(types);
+        return scan();
+    }
+
+    public void setWantedTypes(EnumSet<TokenType> types) {
+        wanted = EnumSet.copyOf(types);
+    }
+
+    // Statistics-only scan: counts tokens per type (the distribution Main prints) without
+    // building any Token or lexeme. Lines, comments and errors are available afterwards as usual.
+    public Map<TokenType, Integer> countTokens() throws IOException {
+        setWantedTypes(EnumSet.noneOf(TokenType.class));
+        while (nextToken() != null) { }
+        return getTypeCounts();
+    }
+
+    // Validate-only scan: stops at the first lexical error. Returns true if there was none.
+    public boolean validate() throws IOException {
+        setWantedTypes(EnumSet.noneOf(TokenType.class));
+        stopAtFirstError = true;
+        while (nextToken() != null) { }
+        return errorHandler.getErrorCount() == 0;
+    }
+
+    // Tokens recognized so far per type, whether or not they were built
+    public Map<TokenType, Integer> getTypeCounts() {
+        Map<TokenType, Integer> counts = new EnumMap<>(TokenType.class);
+        for (TokenType type : TokenType.values()) {
+            if (typeCounts[type.ordinal()] > 0) counts.put(type, typeCounts[type.ordinal()]);
+        }
+        return counts;
+    }
+
+    // Single pass that hands each token, comment and error to the listener as it is found;
+    // no token list is built. EOF is reported as onEnd rather than as a token.
+    public void scan(TokenListener listener) throws IOException {
+        this.listener = listener;
+        try {
+            Token t;
+            while ((t = nextToken()) != null) {
+                listener.onToken(t);
+            }
+            listener.onEnd(getLineCount(), commentCount);
+        } finally {
+            this.listener = null;
+        }
+    }
+
+    public List<Token> scan() throws IOException {
+        Token t;
+        while ((t = nextToken()) != null) {
+            tokens.add(t);
+        }
+        
+        tokens.add(token(TokenType.EOF, "", offset(), col));
+        return tokens;
+    }
+
+    // Scans forward until the next token is recognized. Returns null at end of input,
+    // so callers (e.g. TokenPublisher) can pull tokens one at a time instead of a full list.
+    @Override
+    public Token nextToken() throws IOException {
+        try {
+            return next();
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // read errors surface from fill() deep inside the scan methods
+        }
+    }
+
+    private Token next() {
+        if (resumeComment != null) {
+            Checkpoint from = resumeComment;
+            resumeComment = null;
+            finishMultiLineComment(from.commentStart, from.commentLine, from.commentCol);
+        }
+        while (!atEnd()) {
+            if (stopAtFirstError && errorHandler.getErrorCount() > 0) return null;
+            if (line >= nextCheckpointLine && col == 1) checkpoint(false, 0, 0, 0);
             char current = peek();
 
             if (Character.isWhitespace(current)) {
@@ -54,245 +262,539 @@ public class ManualScanner {
                 }
             }
 
+            mark = pos; // keep the lexeme in the window until the token is built
+            Token t;
             if (Character.isDigit(current) || (current == '.' && Character.isDigit(peekNext()))) {
-                scanNumber(); 
-                continue;
-            }
-            
-            if (Character.isUpperCase(current)) { 
-                scanIdentifier();
-                continue;
-            }
-            if (Character.isLowerCase(current)) { 
-                scanKeywordOrBoolean();
-                continue;
-            }
-
-            if (current == '"') {
-                scanString();
-                continue;
-            }
-
-            if (current == '\'') {
-                scanChar();
-                continue;
-            }
-
-            if (isOperatorOrPunctuatorStart(current)) {
-                scanOperatorOrPunctuator();
+                t = scanNumber(); 
+            } else if (Character.isUpperCase(current)) { 
+                t = scanIdentifier();
+            } else if (Character.isLowerCase(current)) { 
+                t = scanKeywordOrBoolean();
+            } else if (current == '"') {
+                t = scanString();
+            } else if (current == '\'') {
+                t = scanChar();
+            } else if (FixedLexemes.startsOperator(current)) {
+                t = scanOperatorOrPunctuator();
+            } else {
+                // REPORT ERROR: Unknown Character [cite: 136]
+                reportError("Lexical Error", offset(), line, col, String.valueOf(current), "Invalid character");
+                advance(); 
                 continue;
             }
 
-            // REPORT ERROR: Unknown Character [cite: 136]
-            errorHandler.reportError("Lexical Error", line, col, String.valueOf(current), "Invalid character");
-            advance(); 
+            mark = -1;
+            droppedPrefix = null;
+            if (t != null) return t;
         }
-        
-        tokens.add(new Token(TokenType.EOF, "", line, col));
-        return tokens;
+        return null;
     }
 
     private void scanSingleLineComment() {
         commentCount++;
+        if (listener != null) listener.onComment(line, col, false);
         advance(); advance(); 
-        while (pos < input.length() && peek() != '\n') {
+        while (!atEnd() && peek() != '\n') {
             advance();
         }
     }
 
+    // Unclosed comments don't swallow the file: a comment has to close within MAX_COMMENT_LENGTH
+    // chars, otherwise the error is reported and lexing resumes on the line after the "#*". The
+    // closer is looked for ahead of pos, so only that bounded stretch is kept in the window and
+    // nothing is rewound. No char is searched twice, so the worst case stays linear.
     private void scanMultiLineComment() {
         commentCount++;
+        if (listener != null) listener.onComment(line, col, true);
+        long start = offset();
         int startLine = line;
         int startCol = col;
         advance(); advance(); 
-        
-        boolean closed = false;
-        while (pos < input.length() - 1) {
-            if (peek() == '*' && peekNext() == '#') {
-                advance(); advance(); 
-                closed = true;
-                break;
+        finishMultiLineComment(start, startLine, startCol);
+    }
+
+    // Skips to the end of the closing "*#". When resuming inside the comment from a checkpoint the
+    // closer is always found: the full scan only steps into comments it has found the closer of.
+    private void finishMultiLineComment(long start, int startLine, int startCol) {
+        long closer = (start < unclosedCommentFrom) ? findCommentCloser(start) : -1;
+        if (closer >= 0) {
+            while (offset() < closer + 2) {
+                if (line >= nextCheckpointLine && col == 1) checkpoint(true, start, startLine, startCol);
+                advance();
             }
+            return;
+        }
+        // REPORT ERROR: Unclosed Comment [cite: 139]
+        reportError("Lexical Error", start, startLine, startCol, "#*", "Unclosed multi-line comment");
+        while (!atEnd() && peek() != '\n') {
             advance();
         }
-        if (!closed) {
-             // REPORT ERROR: Unclosed Comment [cite: 139]
-             errorHandler.reportError("Lexical Error", startLine, startCol, "#*", "Unclosed multi-line comment");
+    }
+
+    // Input offset of the "*#" closing the comment that starts at start, or -1 if it doesn't close
+    // within MAX_COMMENT_LENGTH chars. Reads ahead of pos without moving it.
+    private long findCommentCloser(long start) {
+        long last = start + MAX_COMMENT_LENGTH - 2; // last offset the closer can start at
+        long p = Math.max(offset(), closerFreeTo);
+        while (p <= last) {
+            if (!has((int) (p - base) - pos + 2)) {
+                unclosedCommentFrom = Math.min(unclosedCommentFrom, start); // ran into EOF
+                break;
+            }
+            int i = (int) (p - base);
+            int end = (int) Math.min(limit - 1, last - base + 1);
+            int from = i;
+            while (i < end && !(buf[i] == '*' && buf[i + 1] == '#')) i++;
+            charsExamined += i - from;
+            p = base + i;
+            if (i < end) {
+                closerFreeTo = p;
+                return p;
+            }
+        }
+        closerFreeTo = p;
+        return -1;
+    }
+
+    private void checkpoint(boolean inComment, long commentStart, int commentLine, int commentCol) {
+        long offset = offset();
+        checkpoints.add(new Checkpoint(offset, offset + dropsUpTo(offset), line, commentCount, unclosedCommentFrom,
+                                       inComment, commentStart, commentLine, commentCol));
+        nextCheckpointLine = line + checkpointInterval;
+    }
+
+    // Number of input chars dropped by \r\n normalization before the given offset (at or
+    // after base). drops is sorted, so this is a binary search.
+    private long dropsUpTo(long offset) {
+        int lo = 0, hi = dropCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (drops[mid] <= offset) lo = mid + 1;
+            else hi = mid;
         }
+        return dropsBefore + lo;
     }
 
-    private void scanIdentifier() {
+    private Token scanIdentifier() {
+        long start = offset();
         int startCol = col;
-        StringBuilder sb = new StringBuilder();
-        sb.append(advance()); 
+        advance(); 
 
-        while (pos < input.length() && (Character.isLowerCase(peek()) || Character.isDigit(peek()) || peek() == '_')) {
-             sb.append(advance());
+        while (!atEnd() && (Character.isLowerCase(peek()) || Character.isDigit(peek()) || peek() == '_')) {
+             advance();
         }
         
-        if (sb.length() > 31) {
+        long length = offset() - start;
+        if (length > 31) {
              // REPORT ERROR: Identifier too long [cite: 138]
-             errorHandler.reportError("Identifier Error", line, startCol, sb.toString(), "Identifier exceeds 31 characters");
+             reportError("Identifier Error", start, line, startCol, errorLexeme(start), "Identifier exceeds 31 characters");
+             if (length > MAX_LEXEME_LENGTH) return null;
         }
 
-        tokens.add(new Token(TokenType.IDENTIFIER, sb.toString(), line, startCol));
+        if (!emit(TokenType.IDENTIFIER)) return null;
+        if (identifierPool != null) {
+            int from = (int) (start - base);
+            int id = identifierPool.intern(buf, from, pos - from);
+            Token t = token(TokenType.IDENTIFIER, identifierPool.nameOf(id), start, startCol);
+            t.setSymbolId(id);
+            return t;
+        }
+        return token(TokenType.IDENTIFIER, text(start), start, startCol);
     }
     
-    private void scanKeywordOrBoolean() {
+    private Token scanKeywordOrBoolean() {
+        long start = offset();
         int startCol = col;
-        StringBuilder sb = new StringBuilder();
-        while (pos < input.length() && Character.isLowerCase(peek())) {
-            sb.append(advance());
+        while (!atEnd() && Character.isLowerCase(peek())) {
+            advance();
         }
         
-        String text = sb.toString();
-        if (KEYWORDS.contains(text)) {
-            tokens.add(new Token(TokenType.KEYWORD, text, line, startCol));
-        } else if (BOOLEANS.contains(text)) {
-            tokens.add(new Token(TokenType.BOOLEAN_LITERAL, text, line, startCol));
-        } else {
+        // The canonical constant, compared in the buffer, so a recognized word needs no substring
+        int from = (int) (start - base);
+        String word = FixedLexemes.word(buf, from, pos - from);
+        if (word == null) {
              // REPORT ERROR: Invalid Identifier Start [cite: 138]
-             errorHandler.reportError("Identifier Error", line, startCol, text, "Identifiers must start with Uppercase");
+             reportError("Identifier Error", start, line, startCol, errorLexeme(start), "Identifiers must start with Uppercase");
+             return null;
         }
+        TokenType type = KEYWORDS.contains(word) ? TokenType.KEYWORD : TokenType.BOOLEAN_LITERAL;
+        if (!emit(type)) return null;
+        return token(type, word, start, startCol);
     }
 
-    private void scanNumber() {
+    // Decodes the value while scanning: integers are accumulated with overflow detection,
+    // floats as (mantissa, decimal exponent) and converted once at the end. An integer too large
+    // for a long is still a valid literal; it just gets no decoded value.
+    private Token scanNumber() {
+        long start = offset();
         int startCol = col;
-        StringBuilder sb = new StringBuilder();
         boolean isFloat = false;
 
+        long intValue = 0;
+        boolean overflow = false;
+        long mantissa = 0;      // first MAX_MANTISSA_DIGITS significant digits
+        int sigDigits = 0;
+        int exp10 = 0;
+        boolean truncated = false; // digits were dropped from the mantissa
+
         while (Character.isDigit(peek())) {
-            sb.append(advance());
+            int d = Character.digit(advance(), 10);
+            if (intValue > (Long.MAX_VALUE - d) / 10) overflow = true;
+            else intValue = intValue * 10 + d;
+
+            if (sigDigits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + d;
+                if (mantissa != 0) sigDigits++;
+            } else {
+                exp10++;
+                if (d != 0) truncated = true;
+            }
         }
 
         if (peek() == '.' && Character.isDigit(peekNext())) {
             isFloat = true;
-            sb.append(advance()); 
+            advance(); 
             while (Character.isDigit(peek())) {
-                sb.append(advance());
+                int d = Character.digit(advance(), 10);
+                if (sigDigits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + d;
+                    if (mantissa != 0) sigDigits++;
+                    exp10--;
+                } else if (d != 0) {
+                    truncated = true;
+                }
             }
         }
         
         if ((peek() == 'e' || peek() == 'E')) {
             isFloat = true;
-            sb.append(advance()); 
+            advance(); 
+            boolean negative = false;
             if (peek() == '+' || peek() == '-') {
-                sb.append(advance());
+                negative = advance() == '-';
             }
+            int exp = 0;
             while (Character.isDigit(peek())) {
-                sb.append(advance());
+                int d = Character.digit(advance(), 10);
+                if (exp < 100000) exp = exp * 10 + d; // saturate; anything this large is 0 or infinity anyway
             }
+            exp10 += negative ? -exp : exp;
+        }
+
+        if (offset() - start > MAX_LEXEME_LENGTH) {
+            reportError("Literal Error", start, line, startCol, errorLexeme(start), "Numeric literal exceeds " + MAX_LEXEME_LENGTH + " characters");
+            return null;
         }
 
         if (isFloat) {
-            tokens.add(new Token(TokenType.FLOAT_LITERAL, sb.toString(), line, startCol));
+            if (!emit(TokenType.FLOAT_LITERAL)) return null;
+            String text = text(start);
+            Token t = token(TokenType.FLOAT_LITERAL, text, start, startCol);
+            t.setFloatValue(toDouble(mantissa, exp10, truncated, text));
+            return t;
         } else {
-            tokens.add(new Token(TokenType.INTEGER_LITERAL, sb.toString(), line, startCol));
+            if (!emit(TokenType.INTEGER_LITERAL)) return null;
+            Token t = token(TokenType.INTEGER_LITERAL, text(start), start, startCol);
+            if (!overflow) t.setIntValue(intValue); // otherwise it stays undecoded, see Token.getIntValue()
+            return t;
         }
     }
 
-    private void scanString() {
+    // Clinger's fast path: when the mantissa and the power of ten are both exactly representable
+    // as doubles, one multiply/divide gives the correctly rounded result. Everything else falls
+    // back to Double.parseDouble on the lexeme.
+    private static double toDouble(long mantissa, int exp10, boolean truncated, String text) {
+        if (mantissa == 0) return 0.0;
+        if (!truncated && mantissa <= (1L << 53)) {
+            if (exp10 >= 0 && exp10 < POW10.length) return mantissa * POW10[exp10];
+            if (exp10 < 0 && -exp10 < POW10.length) return mantissa / POW10[-exp10];
+        }
+        return parseDoubleSlow(text);
+    }
+
+    private static double parseDoubleSlow(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int d = Character.digit(c, 10);
+            sb.append(d >= 0 ? (char) ('0' + d) : c); // parseDouble only accepts ASCII digits
+        }
+        // "1e" / "1e+" are scanned as floats with an empty exponent
+        while ("eE+-".indexOf(sb.charAt(sb.length() - 1)) != -1) {
+            sb.setLength(sb.length() - 1);
+        }
+        return Double.parseDouble(sb.toString());
+    }
+
+    // The lexeme is sliced from the input in one go; escapes stay raw and are only noted,
+    // so Token.getStringValue() can skip decoding when there are none.
+    // Strings cannot span lines: an unclosed string ends at the newline and lexing resumes there.
+    private Token scanString() {
+        long start = offset();
         int startCol = col;
-        StringBuilder sb = new StringBuilder();
+        boolean hasEscapes = false;
         
-        // Fix: Append the opening quote
-        sb.append(advance()); 
+        // Opening quote is part of the lexeme
+        advance(); 
         
-        while (pos < input.length() && peek() != '"') {
+        while (!atEnd() && peek() != '"' && peek() != '\n') {
             if (peek() == '\\') { 
-                sb.append(advance()); 
-                if (pos < input.length()) sb.append(advance());
+                hasEscapes = true;
+                advance(); 
+                if (!atEnd() && peek() != '\n') advance();
             } else {
-                sb.append(advance());
+                advance();
             }
         }
         
-        if (pos >= input.length()) {
-            errorHandler.reportError("Literal Error", line, startCol, sb.toString(), "Unclosed string literal");
-            return;
+        if (atEnd() || peek() == '\n') {
+            reportError("Literal Error", start, line, startCol, errorLexeme(start), "Unclosed string literal");
+            return null;
         }
         
-        // Fix: Append the closing quote
-        sb.append(advance()); 
-        tokens.add(new Token(TokenType.STRING_LITERAL, sb.toString(), line, startCol));
+        // Closing quote too
+        advance(); 
+        if (offset() - start > MAX_STRING_LENGTH) {
+            reportError("Literal Error", start, line, startCol, errorLexeme(start), "String literal exceeds " + MAX_STRING_LENGTH + " characters");
+            return null;
+        }
+        if (!emit(TokenType.STRING_LITERAL)) return null;
+        Token t = token(TokenType.STRING_LITERAL, text(start), start, startCol);
+        t.setHasEscapes(hasEscapes);
+        return t;
     }
 
-    private void scanChar() {
+    private Token scanChar() {
+        long start = offset();
         int startCol = col;
-        StringBuilder sb = new StringBuilder();
+        boolean hasEscapes = false;
         advance(); 
         
         if (peek() == '\\') {
-             sb.append(advance());
-             if (pos < input.length()) sb.append(advance());
+             hasEscapes = true;
+             advance();
+             if (!atEnd()) advance();
         } else {
-             sb.append(advance());
+             advance();
         }
         
+        // Quotes are not part of a char lexeme
         if (peek() == '\'') {
+            if (!emit(TokenType.CHAR_LITERAL)) {
+                advance();
+                return null;
+            }
+            String text = text(start + 1);
             advance(); 
-            tokens.add(new Token(TokenType.CHAR_LITERAL, sb.toString(), line, startCol));
+            Token t = token(TokenType.CHAR_LITERAL, text, start, startCol);
+            t.setHasEscapes(hasEscapes);
+            return t;
         } else {
             // REPORT ERROR: Invalid Char
-            errorHandler.reportError("Literal Error", line, startCol, sb.toString(), "Invalid character literal");
+            reportError("Literal Error", start, line, startCol, text(start + 1), "Invalid character literal");
             advance();
+            return null;
         }
     }
 
-    private void scanOperatorOrPunctuator() {
+    private Token scanOperatorOrPunctuator() {
+        long start = offset();
         int startCol = col;
         char c1 = advance();
-        char c2 = (pos < input.length()) ? peek() : '\0';
-        String twoChars = "" + c1 + c2;
-        
-        if (Arrays.asList("**", "==", "!=", "<=", ">=", "&&", "||", "++", "--", "+=", "-=", "*=", "/=").contains(twoChars)) {
-            advance(); 
-            tokens.add(new Token(determineOpType(twoChars), twoChars, line, startCol));
-        } else {
+        char c2 = peek();
+
+        // Maximal munch over the FixedLexemes tables; the lexeme is the canonical constant
+        String op = FixedLexemes.operator(c1, c2);
+        if (op != null) {
+            advance();
+            TokenType type = determineOpType(c1, c2);
+            return emit(type) ? token(type, op, start, startCol) : null;
+        }
+        op = FixedLexemes.operator(c1);
+        if (op != null) {
             TokenType type = determineSingleCharType(c1);
-            if (type != null) {
-                tokens.add(new Token(type, "" + c1, line, startCol));
-            } else {
-                errorHandler.reportError("Lexical Error", line, startCol, String.valueOf(c1), "Unknown operator");
+            return emit(type) ? token(type, op, start, startCol) : null;
+        }
+        reportError("Lexical Error", start, line, startCol, String.valueOf(c1), "Unknown operator");
+        return null;
+    }
+
+    // Type of a two-char operator: "**", "==", "!=", "<=", ">=", "&&", "||", "++", "--", "+=", "-=", "*=", "/="
+    private static TokenType determineOpType(char c1, char c2) {
+        if (c2 == '=') {
+            switch (c1) {
+                case '=': case '!': case '<': case '>': return TokenType.OPERATOR_RELATIONAL;
+                default: return TokenType.OPERATOR_ASSIGNMENT;
             }
         }
+        switch (c1) {
+            case '&': case '|': return TokenType.OPERATOR_LOGICAL;
+            case '+': case '-': return TokenType.OPERATOR_INC_DEC;
+            default: return TokenType.OPERATOR_ARITHMETIC; // "**"
+        }
     }
 
-    // ... (Keep helper methods: determineOpType, determineSingleCharType, isOperatorOrPunctuatorStart, peek, peekNext, advance) ...
-    // Note: I will strictly copy the helpers below to ensure the code is complete.
-    
-    private TokenType determineOpType(String op) {
-        if (Arrays.asList("==", "!=", "<=", ">=", "<", ">").contains(op)) return TokenType.OPERATOR_RELATIONAL;
-        if (Arrays.asList("&&", "||", "!").contains(op)) return TokenType.OPERATOR_LOGICAL;
-        if (Arrays.asList("+=", "-=", "*=", "/=", "=").contains(op)) return TokenType.OPERATOR_ASSIGNMENT;
-        if (Arrays.asList("++", "--").contains(op)) return TokenType.OPERATOR_INC_DEC;
-        return TokenType.OPERATOR_ARITHMETIC;
+    // Type of a single-char operator or punctuator
+    private static TokenType determineSingleCharType(char c) {
+        switch (c) {
+            case '(': case ')': case '{': case '}': case '[': case ']': case ',': case ';': case ':':
+                return TokenType.PUNCTUATOR;
+            case '<': case '>': case '!':
+                return TokenType.OPERATOR_RELATIONAL;
+            case '=':
+                return TokenType.OPERATOR_ASSIGNMENT;
+            default:
+                return TokenType.OPERATOR_ARITHMETIC; // + - * / %
+        }
     }
-    
-    private TokenType determineSingleCharType(char c) {
-        if ("(){}[],;:".indexOf(c) != -1) return TokenType.PUNCTUATOR;
-        if ("+-*/%".indexOf(c) != -1) return TokenType.OPERATOR_ARITHMETIC;
-        if ("<>!".indexOf(c) != -1) return TokenType.OPERATOR_RELATIONAL; // Removed '=' from here
-        if (c == '=') return TokenType.OPERATOR_ASSIGNMENT; // Correct placement
-        return null;
+
+    private Token token(TokenType type, String lexeme, long start, int startCol) {
+        if (lazyPositions) return new Token(type, lexeme, start, getLineIndex());
+        return new Token(type, lexeme, line, startCol);
     }
-    
-    private boolean isOperatorOrPunctuatorStart(char c) {
-        return "(){}[],;:+-*/%<>=!&|".indexOf(c) != -1;
+
+    // Counts a recognized token and says whether it should be built
+    private boolean emit(TokenType type) {
+        typeCounts[type.ordinal()]++;
+        return wanted.contains(type);
+    }
+
+    private void reportError(String type, long start, int errLine, int errCol, String lexeme, String reason) {
+        if (lazyPositions) {
+            errLine = getLineIndex().lineOf(start);
+            errCol = getLineIndex().columnOf(start);
+        }
+        errorHandler.reportError(type, errLine, errCol, lexeme, reason);
+        if (listener != null) listener.onError(type, errLine, errCol, lexeme, reason);
+    }
+
+    // Input offset of the current position
+    private long offset() {
+        return base + pos;
+    }
+
+    // Text from start (an input offset inside the pinned lexeme) up to the current position
+    private String text(long start) {
+        int from = (int) (start - base);
+        return new String(buf, from, pos - from);
+    }
+
+    // Error reports only keep a prefix of very long lexemes
+    private String errorLexeme(long start) {
+        int from = (int) (start - base);
+        if (from < 0) return droppedPrefix + "..."; // lexeme outgrew the window, only its prefix was kept
+        if (pos - from <= MAX_ERROR_LEXEME_LENGTH) return new String(buf, from, pos - from);
+        return new String(buf, from, MAX_ERROR_LEXEME_LENGTH) + "...";
+    }
+
+    // In lazy-positions mode the index is filled as input is read; otherwise it stays empty
+    public LineIndex getLineIndex() {
+        if (lineIndex == null) lineIndex = new LineIndex();
+        return lineIndex;
+    }
+
+    private boolean has(int n) {
+        return pos + n <= limit || fill(n);
+    }
+
+    private boolean atEnd() {
+        return !has(1);
     }
 
     private char peek() {
-        if (pos >= input.length()) return '\0';
-        return input.charAt(pos);
+        return has(1) ? buf[pos] : '\0';
     }
     
     private char peekNext() {
-        if (pos + 1 >= input.length()) return '\0';
-        return input.charAt(pos + 1);
+        return has(2) ? buf[pos + 1] : '\0';
+    }
+
+    // Slides the window and reads until n chars are available at pos (or input ends).
+    // Everything before pos is discarded unless it belongs to the pinned lexeme.
+    private boolean fill(int n) {
+        if (mark >= 0 && pos - mark > MAX_PIN) {
+            // Too long to be a valid token anyway: keep just enough for the error report
+            droppedPrefix = new String(buf, mark, MAX_ERROR_LEXEME_LENGTH);
+            mark = -1;
+        }
+        int keep = (mark >= 0) ? mark : pos;
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            charsExamined += limit - keep;
+            limit -= keep;
+            pos -= keep;
+            if (mark >= 0) mark -= keep;
+            base += keep;
+            if (dropCount > 0) forgetDrops();
+        }
+        // Live data (a pinned lexeme, comment lookahead) fills most of the window: grow it so
+        // each read still brings in a large block and compaction stays amortized
+        if (pos + n > limit && buf.length - limit < buf.length / 2) buf = Arrays.copyOf(buf, buf.length * 2);
+        while (pos + n > limit && !eof) {
+            if (limit == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+            read();
+        }
+        return pos + n <= limit;
+    }
+
+    // Drops before the window start are only needed as a count
+    private void forgetDrops() {
+        int i = 0;
+        while (i < dropCount && drops[i] <= base) i++;
+        System.arraycopy(drops, i, drops, 0, dropCount - i);
+        dropCount -= i;
+        dropsBefore += i;
+    }
+
+    // Reads one block into buf, normalizing \r\n and \r to \n
+    private void read() {
+        try {
+            int n = reader.read(buf, limit, buf.length - limit);
+            if (n < 0) {
+                eof = true;
+                reader.close();
+                if (lastChar != '\n') {
+                    if (limit == buf.length) buf = Arrays.copyOf(buf, buf.length + 1);
+                    buf[limit++] = '\n';
+                    lastChar = '\n';
+                    if (lazyPositions) getLineIndex().addLineStart(base + limit);
+                }
+                return;
+            }
+            int w = limit;
+            for (int i = limit; i < limit + n; i++) {
+                char c = buf[i];
+                if (pendingCR) {
+                    pendingCR = false;
+                    if (c == '\n') {
+                        if (trackDrops) recordDrop(base + w);
+                        continue; // second half of \r\n
+                    }
+                }
+                if (c == '\r') {
+                    pendingCR = true;
+                    c = '\n';
+                }
+                buf[w++] = c;
+                if (c == '\n' && lazyPositions) getLineIndex().addLineStart(base + w);
+            }
+            if (w > limit) lastChar = buf[w - 1];
+            limit = w;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void recordDrop(long offset) {
+        if (dropCount == drops.length) drops = Arrays.copyOf(drops, dropCount * 2);
+        drops[dropCount++] = offset;
     }
 
     private char advance() {
-        char c = input.charAt(pos++);
+        if (!has(1)) return '\0';
+        char c = buf[pos++];
+        charsExamined++;
+        if (lazyPositions) return c;
         if (c == '\n') {
             line++;
             col = 1;
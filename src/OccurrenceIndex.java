@@ -0,0 +1,402 @@
+package src;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Persistent inverted index of every IDENTIFIER occurrence across many files, for find-usages
+// without re-lexing. For each name the index stores a posting list of (file id, offset, line),
+// sorted by file and offset, delta-encoded and written as varints. Offsets are char offsets in
+// the file as read, \r\n counting as two chars, so they can be used to seek in the file.
+//
+// File layout:
+//   header      int magic, int version, long dictionary offset
+//   postings    one varint posting list per name, back to back (memory-mapped for queries)
+//   dictionary  files (path, size, modified) then names (name, count, postings offset, length)
+//
+// Updates are per file: only changed files are lexed again, and the index is rewritten by
+// copying the other files' postings over. Files keep their id for the life of the index.
+//
+// Usage: java src.OccurrenceIndex <index-file> update <directory>
+//        java src.OccurrenceIndex <index-file> find <Name>...
+public class OccurrenceIndex {
+    private static final int MAGIC = 0x4C584958; // "LXIX"
+    private static final int VERSION = 2; // 1 stored offsets after \r\n normalization
+    private static final int HEADER_SIZE = 16;
+
+    public static class Occurrence {
+        public final String file;
+        public final int offset;
+        public final int line;
+
+        Occurrence(String file, int offset, int line) {
+            this.file = file;
+            this.offset = offset;
+            this.line = line;
+        }
+
+        @Override
+        public String toString() {
+            return file + ":" + line + " (offset " + offset + ")";
+        }
+    }
+
+    private static class FileEntry {
+        String path; // null once the file was removed
+        long size;
+        long modified;
+    }
+
+    private static class Term {
+        int count;
+        long offset; // into the postings section
+        int length;
+    }
+
+    // Growable list of (file, offset, line) triples
+    private static class Postings {
+        int[] data = new int[24];
+        int size = 0;
+
+        void add(int file, int offset, int line) {
+            if (size + 3 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = file;
+            data[size++] = offset;
+            data[size++] = line;
+        }
+
+        int count() { return size / 3; }
+    }
+
+    private final Path indexFile;
+    private final List<FileEntry> files = new ArrayList<>();
+    private final Map<String, Integer> fileIds = new HashMap<>();
+    private final Map<String, Term> terms = new TreeMap<>();
+    private MappedByteBuffer postings;
+
+    // Opens the index, or starts an empty one if the file doesn't exist yet
+    public OccurrenceIndex(Path indexFile) throws IOException {
+        this.indexFile = indexFile;
+        if (Files.exists(indexFile)) load();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java src.OccurrenceIndex <index-file> update <directory>");
+            System.out.println("       java src.OccurrenceIndex <index-file> find <Name>...");
+            return;
+        }
+        OccurrenceIndex index = new OccurrenceIndex(Paths.get(args[0]));
+        if (args[1].equals("update")) {
+            long started = System.nanoTime();
+            int relexed = index.sync(Paths.get(args[2]));
+            long ms = (System.nanoTime() - started) / 1_000_000;
+            System.out.println("Re-lexed " + relexed + " file(s) in " + ms + " ms; "
+                               + index.getFileCount() + " files, " + index.names().size() + " names indexed");
+        } else if (args[1].equals("find")) {
+            for (int i = 2; i < args.length; i++) {
+                List<Occurrence> found = index.find(args[i]);
+                System.out.println(args[i] + ": " + found.size() + " occurrence(s)");
+                for (Occurrence o : found) {
+                    System.out.println("  " + o);
+                }
+            }
+        } else {
+            System.out.println("Unknown command: " + args[1]);
+        }
+    }
+
+    // All occurrences of name, ordered by file id and offset
+    public List<Occurrence> find(String name) {
+        Term term = terms.get(name);
+        if (term == null) return Collections.emptyList();
+        Postings p = decode(term);
+        List<Occurrence> result = new ArrayList<>(p.count());
+        for (int i = 0; i < p.size; i += 3) {
+            result.add(new Occurrence(files.get(p.data[i]).path, p.data[i + 1], p.data[i + 2]));
+        }
+        return result;
+    }
+
+    public int count(String name) {
+        Term term = terms.get(name);
+        return (term == null) ? 0 : term.count;
+    }
+
+    public Set<String> names() { return terms.keySet(); }
+
+    public int getFileCount() { return fileIds.size(); }
+
+    // Brings the index in line with the source files under root: new and modified files are
+    // lexed, deleted ones dropped. Returns the number of files lexed.
+    public int sync(Path root) throws IOException {
+        Set<Path> paths = new LinkedHashSet<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            paths.addAll(walk.filter(Files::isRegularFile).filter(WatchMode::isSourceFile)
+                             .map(p -> p.toAbsolutePath().normalize()).collect(Collectors.toList()));
+        }
+        Path absolute = root.toAbsolutePath().normalize();
+        for (String known : fileIds.keySet()) {
+            if (Paths.get(known).startsWith(absolute)) paths.add(Paths.get(known)); // gone files get removed
+        }
+        return update(paths);
+    }
+
+    // Re-checks the given files; unchanged ones (same size and modification time) are skipped,
+    // missing ones are removed. Returns the number of files lexed. The new file entries are only
+    // swapped in once every file has been lexed and the index rewritten, so a failure part way
+    // leaves the index as it was.
+    public int update(Collection<Path> paths) throws IOException {
+        Map<Integer, Map<String, Postings>> changed = new TreeMap<>(); // file id -> its new postings
+        Map<Integer, FileEntry> entries = new TreeMap<>();              // file id -> its new entry
+        int nextId = files.size();
+        for (Path p : paths) {
+            String path = p.toAbsolutePath().normalize().toString();
+            Integer id = fileIds.get(path);
+            if (!Files.isRegularFile(p)) {
+                if (id == null) continue;
+                entries.put(id, new FileEntry()); // path stays null: removed
+                changed.put(id, Collections.emptyMap());
+                continue;
+            }
+            long size = Files.size(p);
+            long modified = Files.getLastModifiedTime(p).toMillis();
+            if (id != null && files.get(id).size == size && files.get(id).modified == modified) continue;
+
+            if (id == null) id = nextId++;
+            FileEntry f = new FileEntry();
+            f.path = path;
+            f.size = size;
+            f.modified = modified;
+            changed.put(id, lex(path, id));
+            entries.put(id, f);
+        }
+        if (changed.isEmpty()) return 0;
+
+        List<FileEntry> oldFiles = new ArrayList<>(files);
+        Map<String, Integer> oldIds = new HashMap<>(fileIds);
+        for (Map.Entry<Integer, FileEntry> e : entries.entrySet()) {
+            int id = e.getKey();
+            FileEntry f = e.getValue();
+            if (id < files.size()) {
+                String oldPath = files.get(id).path;
+                if (oldPath != null) fileIds.remove(oldPath);
+                files.set(id, f);
+            } else {
+                files.add(f); // new ids come in order
+            }
+            if (f.path != null) fileIds.put(f.path, id);
+        }
+        try {
+            rewrite(changed);
+        } catch (IOException | RuntimeException e) {
+            files.clear();
+            files.addAll(oldFiles);
+            fileIds.clear();
+            fileIds.putAll(oldIds);
+            throw e;
+        }
+        return (int) entries.values().stream().filter(f -> f.path != null).count();
+    }
+
+    private static Map<String, Postings> lex(String path, int id) throws IOException {
+        Map<String, Postings> result = new HashMap<>();
+        try (ManualScanner scanner = new ManualScanner(path, true)) { // lazy positions: offsets come for free
+            scanner.setRawOffsets();
+            Token t;
+            while ((t = scanner.nextToken()) != null) {
+                if (t.getType() == TokenType.IDENTIFIER) {
+                    long offset = scanner.rawOffset(t.getOffset());
+                    if (offset > Integer.MAX_VALUE) throw new IOException(path + ": offsets past 2^31 chars don't fit the index");
+                    result.computeIfAbsent(t.getLexeme(), k -> new Postings()).add(id, (int) offset, t.getLine());
+                }
+            }
+        }
+        return result;
+    }
+
+    // Writes a new index file: for every name, the old postings minus the changed files merged
+    // with the changed files' new postings. The new file replaces the old one atomically.
+    private void rewrite(Map<Integer, Map<String, Postings>> changed) throws IOException {
+        Set<String> names = new TreeSet<>(terms.keySet());
+        for (Map<String, Postings> m : changed.values()) names.addAll(m.keySet());
+
+        Map<String, Term> newTerms = new TreeMap<>();
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(0); // dictionary offset, patched below
+
+            long written = 0;
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            for (String name : names) {
+                Term old = terms.get(name);
+                Postings kept = (old == null) ? new Postings() : decode(old);
+                Postings merged = merge(kept, changed, name);
+                if (merged.size == 0) continue;
+
+                encoded.reset();
+                encode(merged, encoded);
+                encoded.writeTo(out);
+
+                Term t = new Term();
+                t.count = merged.count();
+                t.offset = written;
+                t.length = encoded.size();
+                newTerms.put(name, t);
+                written += t.length;
+            }
+
+            long dictionaryOffset = HEADER_SIZE + written;
+            out.writeInt(files.size());
+            for (FileEntry f : files) {
+                out.writeUTF(f.path == null ? "" : f.path);
+                out.writeLong(f.size);
+                out.writeLong(f.modified);
+            }
+            out.writeInt(newTerms.size());
+            for (Map.Entry<String, Term> e : newTerms.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeInt(e.getValue().count);
+                out.writeLong(e.getValue().offset);
+                out.writeInt(e.getValue().length);
+            }
+            out.flush();
+
+            ByteBuffer patch = ByteBuffer.allocate(8).putLong(0, dictionaryOffset);
+            channel.write(patch, 8);
+            channel.force(true);
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        terms.clear();
+        load();
+    }
+
+    // Replaces the changed files' postings in old (sorted by file, offset) with their new ones
+    private static Postings merge(Postings old, Map<Integer, Map<String, Postings>> changed, String name) {
+        Postings result = new Postings();
+        int i = 0;
+        for (Map.Entry<Integer, Map<String, Postings>> e : changed.entrySet()) {
+            int id = e.getKey();
+            for (; i < old.size && old.data[i] < id; i += 3) {
+                result.add(old.data[i], old.data[i + 1], old.data[i + 2]);
+            }
+            while (i < old.size && old.data[i] == id) i += 3;
+            Postings p = e.getValue().get(name);
+            if (p != null) {
+                for (int j = 0; j < p.size; j += 3) result.add(p.data[j], p.data[j + 1], p.data[j + 2]);
+            }
+        }
+        for (; i < old.size; i += 3) {
+            result.add(old.data[i], old.data[i + 1], old.data[i + 2]);
+        }
+        return result;
+    }
+
+    // Each posting is (file delta, offset delta, line delta); offset and line restart at 0 on a new file
+    private static void encode(Postings p, ByteArrayOutputStream out) {
+        int prevFile = 0, prevOffset = 0, prevLine = 0;
+        for (int i = 0; i < p.size; i += 3) {
+            int file = p.data[i];
+            if (file != prevFile) {
+                prevOffset = 0;
+                prevLine = 0;
+            }
+            writeVarint(out, file - prevFile);
+            writeVarint(out, p.data[i + 1] - prevOffset);
+            writeVarint(out, p.data[i + 2] - prevLine);
+            prevFile = file;
+            prevOffset = p.data[i + 1];
+            prevLine = p.data[i + 2];
+        }
+    }
+
+    private Postings decode(Term term) {
+        Postings p = new Postings();
+        ByteBuffer in = postings.duplicate();
+        in.position((int) term.offset);
+        int file = 0, offset = 0, line = 0;
+        for (int n = 0; n < term.count; n++) {
+            int fileDelta = readVarint(in);
+            if (fileDelta != 0) {
+                file += fileDelta;
+                offset = 0;
+                line = 0;
+            }
+            offset += readVarint(in);
+            line += readVarint(in);
+            p.add(file, offset, line);
+        }
+        return p;
+    }
+
+    // 7 bits per byte, low bits first; the high bit is set on all but the last byte
+    private static int readVarint(ByteBuffer in) {
+        int value = 0, shift = 0, b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // Reads the dictionary into memory and maps the postings section
+    private void load() throws IOException {
+        files.clear();
+        fileIds.clear();
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) { }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("Not an occurrence index: " + indexFile);
+            }
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported index version " + version + ": " + indexFile);
+            long dictionaryOffset = header.getLong();
+
+            // A single mapping covers up to 2 GB of postings
+            postings = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, dictionaryOffset - HEADER_SIZE);
+
+            channel.position(dictionaryOffset);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                FileEntry f = new FileEntry();
+                String path = in.readUTF();
+                f.path = path.isEmpty() ? null : path;
+                f.size = in.readLong();
+                f.modified = in.readLong();
+                files.add(f);
+                if (f.path != null) fileIds.put(f.path, i);
+            }
+            int termCount = in.readInt();
+            for (int i = 0; i < termCount; i++) {
+                String name = in.readUTF();
+                Term t = new Term();
+                t.count = in.readInt();
+                t.offset = in.readLong();
+                t.length = in.readInt();
+                terms.put(name, t);
+            }
+        }
+    }
+}
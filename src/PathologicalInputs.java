@@ -0,0 +1,136 @@
+package src;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+// Adversarial inputs for ManualScanner, each checked for linear work, allocation and time.
+// Every case is scanned at two sizes (SIZE and 4 * SIZE); a linear scanner should examine about
+// 4x the chars and allocate about 4x the bytes, a quadratic one about 16x. Work is the scanner's
+// own count, so time is checked as well, from outside: the case is timed at doubling sizes from
+// SIZE / 2 to 4 * SIZE, where a linear scanner takes about 8x as long and a quadratic one 64x.
+// Timing is noisy, so its bound is generous. Timed runs use a listener and keep no token list, so
+// the garbage collector's work on a growing list doesn't count as the scanner's.
+//
+// Usage: java src.PathologicalInputs [size]
+public class PathologicalInputs {
+    private static final int SIZE = 1 << 20;
+    private static final double MAX_GROWTH = 8.0;       // allowed work/alloc ratio for a 4x larger input
+    private static final double MAX_TIME_GROWTH = 24.0; // allowed time ratio for an 8x larger input
+    private static final int RUNS = 7;                  // timed runs per size, the fastest counts
+
+    public static void main(String[] args) throws IOException {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : SIZE;
+        String[][] cases = {
+            {"unclosed strings",      "\"abc def\n"},
+            {"unclosed comments",     "#*\n"},
+            {"one unclosed comment",  "#*"},
+            {"long unclosed comment", "#*\n", "Count = 1\n"},
+            {"huge identifier",       "A", "b"},
+            {"huge lowercase word",   "x"},
+            {"huge integer",          "9"},
+            {"huge float",            "1.", "5"},
+            {"invalid characters",    "$"},
+            {"one unclosed string",   "\"", "x"},
+            {"escapes",               "\"\\n\\t\\\\\" "},
+            {"operator soup",         "+-*/=<>!&|"},
+        };
+
+        System.out.printf("%-22s %12s %12s %10s %10s %10s  %s%n",
+                          "Case", "ms (n/2)", "ms (4n)", "time x", "work x", "alloc x", "Result");
+        boolean allPassed = true;
+        for (String[] c : cases) {
+            String small = build(c, size);
+            String large = build(c, size * 4);
+            long[] s = count(small);
+            long[] l = count(large);
+
+            // Warm up the JIT at every size before timing
+            String[] sizes = {build(c, size / 2), small, build(c, size * 2), large};
+            long[] times = new long[sizes.length];
+            for (String text : sizes) time(text);
+            for (int i = 0; i < sizes.length; i++) times[i] = time(sizes[i]);
+
+            double timeGrowth = (double) times[sizes.length - 1] / Math.max(1, times[0]);
+            double workGrowth = (double) l[0] / Math.max(1, s[0]);
+            double allocGrowth = (double) l[1] / Math.max(1, s[1]);
+            boolean passed = workGrowth <= MAX_GROWTH && allocGrowth <= MAX_GROWTH && timeGrowth <= MAX_TIME_GROWTH;
+            allPassed &= passed;
+            System.out.printf("%-22s %12.1f %12.1f %10.2f %10.2f %10.2f  %s%n", c[0], times[0] / 1e6,
+                              times[sizes.length - 1] / 1e6, timeGrowth, workGrowth, allocGrowth, passed ? "PASS" : "FAIL");
+        }
+
+        boolean resumes = resumesAfterUnclosedComment(size);
+        System.out.printf("%nCode after an unclosed comment longer than the window is lexed: %s%n", resumes ? "PASS" : "FAIL");
+
+        if (!allPassed || !resumes) {
+            System.out.println("\nSome inputs do not scan in linear time/memory.");
+            System.exit(1);
+        }
+    }
+
+    // The unclosed "#*" is reported and every line after it is still lexed, by ManualScanner and
+    // by GeneratedScanner with both of its matchers
+    private static boolean resumesAfterUnclosedComment(int size) throws IOException {
+        String text = build(new String[] {"long unclosed comment", "#*\n", "Count = 1\n"}, size);
+        int lines = (text.length() - 3) / 10;
+        boolean resumed;
+        try (ManualScanner scanner = new ManualScanner(new StringReader(text))) {
+            resumed = scanner.scan().size() == 3 * lines + 1 // Count, =, 1 on each line, then EOF
+                    && scanner.getErrorHandler().getErrorCount() == 1;
+        }
+
+        LexerGenerator.Dfa dfa = GeneratedScanner.defaultDfa();
+        for (DfaMatcher matcher : new DfaMatcher[] {dfa, DfaCompiler.compile(dfa)}) {
+            try (GeneratedScanner generated = new GeneratedScanner(new StringReader(text), dfa, matcher)) {
+                int tokens = 0;
+                while (generated.nextToken() != null) tokens++;
+                resumed &= tokens == 3 * lines && generated.getErrorHandler().getErrorCount() == 1;
+            }
+        }
+        return resumed;
+    }
+
+    // {name, unit}: unit repeated; {name, prefix, unit}: prefix followed by unit repeated
+    private static String build(String[] c, int size) {
+        String prefix = c.length > 2 ? c[1] : "";
+        String unit = c[c.length - 1];
+        StringBuilder sb = new StringBuilder(size + unit.length());
+        sb.append(prefix);
+        while (sb.length() < size) {
+            sb.append(unit);
+        }
+        return sb.toString();
+    }
+
+    // Returns {chars examined, bytes allocated} of a full scan, measured after a warm-up run
+    private static long[] count(String text) throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long examined = 0;
+        long allocated = 0;
+        for (int i = 0; i < 2; i++) {
+            long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+            try (ManualScanner scanner = new ManualScanner(new StringReader(text))) {
+                scanner.scan();
+                allocated = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+                examined = scanner.getCharsExamined();
+            }
+        }
+        return new long[] {examined, allocated};
+    }
+
+    // Fastest of RUNS scans in nanoseconds, each started from a collected heap
+    private static long time(String text) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            System.gc();
+            long start = System.nanoTime();
+            try (ManualScanner scanner = new ManualScanner(new StringReader(text))) {
+                scanner.scan(t -> { });
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,101 @@
+package src;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Bounded lock-free ring for exactly one producer thread and one consumer thread.
+// Slots are allocated once up front and recycled: the producer claims a free slot, fills it
+// and publishes it; the consumer takes the oldest published slot, reads it and releases it.
+// Either side can fail() the ring, which wakes the other one out of claim() or take().
+public class SpscRing<T> {
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next slot to take, written by the consumer only
+    private final AtomicLong tail = new AtomicLong(); // next slot to publish, written by the producer only
+    private long cachedHead = 0; // producer's last view of head
+    private long cachedTail = 0; // consumer's last view of tail
+    private volatile boolean closed = false;
+    private volatile Throwable failure;
+
+    // Thrown from claim() and take() once the ring has failed; the cause is what fail() was given
+    public static class FailedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        FailedException(Throwable cause) {
+            super("The other side of the ring failed", cause);
+        }
+    }
+
+    public SpscRing(int capacity, Supplier<T> factory) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        slots = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = factory.get();
+        }
+        mask = capacity - 1;
+    }
+
+    // Producer: waits until a slot is free and returns it for filling
+    public T claim() {
+        long t = tail.get();
+        int spins = 0;
+        while (t - cachedHead >= slots.length) {
+            if (failure != null) throw new FailedException(failure);
+            cachedHead = head.get();
+            if (t - cachedHead >= slots.length) spins = idle(spins);
+        }
+        return slot(t);
+    }
+
+    // Producer: makes the claimed slot visible to the consumer
+    public void publish() {
+        tail.lazySet(tail.get() + 1);
+    }
+
+    // Producer: no more slots will be published
+    public void close() {
+        closed = true;
+    }
+
+    // Either side: gives up on the ring. A claim() or take() that would wait throws instead.
+    public void fail(Throwable cause) {
+        failure = cause;
+    }
+
+    // Consumer: waits for the oldest published slot; returns null once the producer
+    // has closed the ring and everything was taken
+    public T take() {
+        long h = head.get();
+        int spins = 0;
+        while (h >= cachedTail) {
+            if (failure != null) throw new FailedException(failure);
+            boolean done = closed; // read before tail: everything published before close() is then visible
+            cachedTail = tail.get();
+            if (h < cachedTail) break;
+            if (done) return null;
+            spins = idle(spins);
+        }
+        return slot(h);
+    }
+
+    // Consumer: hands the slot taken last back to the producer
+    public void release() {
+        head.lazySet(head.get() + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T slot(long sequence) {
+        return (T) slots[(int) sequence & mask];
+    }
+
+    // Spin briefly, then back off to short parks so a stalled stage doesn't burn a core
+    private static int idle(int spins) {
+        if (spins < 100) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(1_000);
+        }
+        return spins + 1;
+    }
+}
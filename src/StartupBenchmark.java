@@ -0,0 +1,83 @@
+package src;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Measures end-to-end startup of a driver (JVM launch + class init + scan of a small file)
+// by running it as a child process under different JVM configurations. The AppCDS ones only
+// run with the classes packaged in a single jar: javac -d out src/*.java && jar cf lexer.jar -C out .
+//
+// Usage: java [-cp lexer.jar] src.StartupBenchmark [driverClass] [file] [runs]
+public class StartupBenchmark {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String driver = (args.length > 0) ? args[0] : "src.JFlexDriver";
+        String file = (args.length > 1) ? args[1] : "tests/test1.lang";
+        int runs = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+
+        String classPath = System.getProperty("java.class.path");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+        System.out.println("Startup of " + driver + " on " + file + " (median of " + runs + " runs)");
+        report(java, classPath, driver, file, runs, "default");
+        report(java, classPath, driver, file, runs, "C1 only", "-XX:TieredStopAtLevel=1");
+
+        if (!classPath.endsWith(".jar") || classPath.contains(File.pathSeparator)) {
+            System.out.println("AppCDS skipped: run with a single jar on the classpath to archive application classes");
+            return;
+        }
+
+        Path archive = Files.createTempFile("lexer", ".jsa");
+        Files.delete(archive); // the JVM refuses to overwrite an existing file
+        try {
+            run(command(java, classPath, driver, file, "-XX:ArchiveClassesAtExit=" + archive));
+            String useArchive = "-XX:SharedArchiveFile=" + archive;
+            report(java, classPath, driver, file, runs, "AppCDS", useArchive);
+            report(java, classPath, driver, file, runs, "AppCDS + C1 only", useArchive, "-XX:TieredStopAtLevel=1");
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    private static void report(String java, String classPath, String driver, String file, int runs,
+                               String label, String... jvmOptions) throws IOException, InterruptedException {
+        List<String> cmd = command(java, classPath, driver, file, jvmOptions);
+        run(cmd); // warm the file system cache
+
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            times[i] = run(cmd);
+        }
+        Arrays.sort(times);
+        System.out.printf("  %-20s %8.1f ms%n", label, times[runs / 2] / 1e6);
+    }
+
+    private static List<String> command(String java, String classPath, String driver, String file, String... jvmOptions) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(java);
+        cmd.addAll(Arrays.asList(jvmOptions));
+        cmd.add("-cp");
+        cmd.add(classPath);
+        cmd.add(driver);
+        cmd.add(file);
+        return cmd;
+    }
+
+    // Wall time of one child JVM, output discarded
+    private static long run(List<String> cmd) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process p = new ProcessBuilder(cmd)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        int exit = p.waitFor();
+        long elapsed = System.nanoTime() - start;
+        if (exit != 0) throw new IOException("Child JVM failed (exit " + exit + "): " + String.join(" ", cmd));
+        return elapsed;
+    }
+}
@@ -1,7 +1,10 @@
 package src;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap; // Used for sorted output
 
 public class SymbolTable {
@@ -29,6 +32,73 @@ public class SymbolTable {
         }
     }
 
+    // Adds `frequency` occurrences at once, e.g. from another process's table.
+    // Like merge, the first line is the smallest one seen.
+    public void add(String name, String type, int firstLine, int frequency) {
+        SymbolEntry e = table.get(name);
+        if (e == null) {
+            e = new SymbolEntry(type, firstLine);
+            e.frequency = frequency;
+            table.put(name, e);
+        } else {
+            e.frequency += frequency;
+            e.firstLine = Math.min(e.firstLine, firstLine);
+        }
+    }
+
+    public int size() { return table.size(); }
+    public Set<String> names() { return table.keySet(); }
+
+    public int getFrequency(String name) {
+        SymbolEntry e = table.get(name);
+        return (e == null) ? 0 : e.frequency;
+    }
+
+    public int getFirstLine(String name) {
+        SymbolEntry e = table.get(name);
+        return (e == null) ? 0 : e.firstLine;
+    }
+
+    // Folds another table (e.g. one file's symbols) into this aggregate.
+    // Frequencies add up; the first line is the smallest one seen.
+    public void merge(SymbolTable other) {
+        for (Map.Entry<String, SymbolEntry> entry : other.table.entrySet()) {
+            SymbolEntry o = entry.getValue();
+            SymbolEntry e = table.get(entry.getKey());
+            if (e == null) {
+                e = new SymbolEntry(o.type, o.firstLine);
+                e.frequency = o.frequency;
+                table.put(entry.getKey(), e);
+            } else {
+                e.frequency += o.frequency;
+                e.firstLine = Math.min(e.firstLine, o.firstLine);
+            }
+        }
+    }
+
+    // Undoes a previous merge(other). Entries whose frequency drops to zero are removed.
+    // Returns the names whose first line came from `other` and may now be too small;
+    // the caller can fix them with setFirstLine once it knows the remaining contributions.
+    public List<String> subtract(SymbolTable other) {
+        List<String> stale = new ArrayList<>();
+        for (Map.Entry<String, SymbolEntry> entry : other.table.entrySet()) {
+            SymbolEntry e = table.get(entry.getKey());
+            if (e == null) continue;
+            e.frequency -= entry.getValue().frequency;
+            if (e.frequency <= 0) {
+                table.remove(entry.getKey());
+            } else if (e.firstLine == entry.getValue().firstLine) {
+                stale.add(entry.getKey());
+            }
+        }
+        return stale;
+    }
+
+    public void setFirstLine(String name, int line) {
+        SymbolEntry e = table.get(name);
+        if (e != null) e.firstLine = line;
+    }
+
     public void printTable() {
         System.out.println("\n================ SYMBOL TABLE ================");
         System.out.printf("%-20s %-15s %-10s %-10s%n", "Name", "Type", "First Line", "Frequency");
@@ -1,10 +1,20 @@
 package src;
 
+import java.nio.CharBuffer;
+
 public class Token {
     private TokenType type;
     private String lexeme;
     private int line;
     private int column;
+    private long offset = -1;
+    private LineIndex lineIndex; // set only for tokens with lazily resolved positions
+    private boolean hasValue = false; // numeric value already decoded by the scanner
+    private long intValue;
+    private double floatValue;
+    private boolean hasEscapes = true; // assume escapes unless the scanner saw none
+    private CharSequence stringValue;  // decoded literal contents, cached
+    private int symbolId = -1;         // IdentifierPool id of an interned IDENTIFIER
 
     public Token(TokenType type, String lexeme, int line, int column) {
         this.type = type;
@@ -13,15 +23,118 @@ public class Token {
         this.column = column;
     }
 
+    // Token that only knows its start offset; line/column are looked up in the index when first asked for
+    public Token(TokenType type, String lexeme, long offset, LineIndex lineIndex) {
+        this.type = type;
+        this.lexeme = lexeme;
+        this.offset = offset;
+        this.lineIndex = lineIndex;
+    }
+
     public TokenType getType() { return type; }
     public String getLexeme() { return lexeme; }
-    public int getLine() { return line; }
-    public int getColumn() { return column; }
+    public long getOffset() { return offset; }
+
+    // Id of the identifier in the scanner's IdentifierPool, or -1 if it wasn't interned.
+    // Identifiers from the same pool are equal exactly when their ids are.
+    public int getSymbolId() { return symbolId; }
+
+    void setSymbolId(int id) { this.symbolId = id; }
+
+    // Value of an INTEGER_LITERAL. Decoded during scanning by ManualScanner; other tokens
+    // (e.g. from Yylex) are parsed from the lexeme on demand. A literal that doesn't fit in a
+    // long has no value: isIntRepresentable() is false and this throws NumberFormatException.
+    public long getIntValue() {
+        if (hasValue) return intValue;
+        return Long.parseLong(lexeme);
+    }
+
+    // False for an INTEGER_LITERAL outside the range of a long
+    public boolean isIntRepresentable() {
+        if (hasValue) return true;
+        try {
+            Long.parseLong(lexeme);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Value of a FLOAT_LITERAL (or an INTEGER_LITERAL widened to double)
+    public double getFloatValue() {
+        if (hasValue) return floatValue;
+        return Double.parseDouble(lexeme);
+    }
+
+    void setIntValue(long value) {
+        this.intValue = value;
+        this.floatValue = value;
+        this.hasValue = true;
+    }
+
+    void setFloatValue(double value) {
+        this.floatValue = value;
+        this.intValue = (long) value;
+        this.hasValue = true;
+    }
+
+    // Contents of a STRING_LITERAL or CHAR_LITERAL without quotes and with escapes decoded.
+    // Without escapes this is a view over the lexeme (no copy); otherwise it is decoded once and cached.
+    public CharSequence getStringValue() {
+        if (stringValue == null) {
+            int from = 0, to = lexeme.length();
+            // ManualScanner keeps the quotes on strings only, Yylex on both
+            if ((to >= 2 && lexeme.charAt(0) == '"') || (to >= 3 && lexeme.charAt(0) == '\'')) {
+                from++;
+                to--;
+            }
+            if (!hasEscapes || lexeme.indexOf('\\', from) < 0) {
+                stringValue = CharBuffer.wrap(lexeme, from, to);
+            } else {
+                stringValue = decodeEscapes(lexeme, from, to);
+            }
+        }
+        return stringValue;
+    }
+
+    private static String decodeEscapes(String s, int from, int to) {
+        StringBuilder sb = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 == to) {
+                sb.append(c);
+                continue;
+            }
+            char e = s.charAt(++i);
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case '0': sb.append('\0'); break;
+                default:  sb.append(e);     // \\, \", \' and any other escaped character
+            }
+        }
+        return sb.toString();
+    }
+
+    void setHasEscapes(boolean hasEscapes) {
+        this.hasEscapes = hasEscapes;
+    }
+
+    public int getLine() {
+        if (line == 0 && lineIndex != null) line = lineIndex.lineOf(offset);
+        return line;
+    }
+
+    public int getColumn() {
+        if (column == 0 && lineIndex != null) column = lineIndex.columnOf(offset);
+        return column;
+    }
 
     @Override
     public String toString() {
         // Format required by PDF Section 4.2.C 
         return String.format("<%s, \"%s\", Line: %d, Col: %d>", 
-                             type, lexeme, line, column);
+                             type, lexeme, getLine(), getColumn());
     }
 }
\ No newline at end of file
@@ -0,0 +1,342 @@
+package src;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Compact archive of lexed tokens, for keeping the output of many builds around.
+// Tokens are grouped into blocks of BLOCK_TOKENS; each block stores its columns separately:
+//   types      run-length encoded (type, run length)
+//   lexemes    a per-block dictionary of distinct lexemes, then one dictionary index per token
+//   positions  line as a delta from the previous token, column as a delta on the same line
+// All numbers are varints and the block is then deflated, which entropy-codes the columns.
+// A block index at the end of the file allows random access by token number.
+//
+// File layout:
+//   int magic, int version
+//   blocks      int compressed length, int raw length, deflated bytes
+//   index       int block count, long token count, per block: long file offset, long first token, int first line
+//   trailer     long index offset, int magic
+//
+// Usage: java src.TokenArchive pack <source-file> <archive>
+//        java src.TokenArchive unpack <archive>
+public class TokenArchive {
+    private static final int MAGIC = 0x4C585441; // "LXTA"
+    private static final int VERSION = 1;
+    public static final int BLOCK_TOKENS = 4096;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("pack")) {
+            long started = System.nanoTime();
+            long count = 0;
+            try (Writer out = new Writer(Paths.get(args[2]));
+                 ManualScanner scanner = new ManualScanner(args[1])) {
+                Token t;
+                while ((t = scanner.nextToken()) != null) {
+                    out.write(t);
+                    count++;
+                }
+            }
+            long ms = (System.nanoTime() - started) / 1_000_000;
+            long source = Files.size(Paths.get(args[1]));
+            long archive = Files.size(Paths.get(args[2]));
+            System.out.printf("Packed %d tokens in %d ms: %d bytes -> %d bytes (%.1f%% of source)%n",
+                              count, ms, source, archive, 100.0 * archive / Math.max(1, source));
+        } else if (args.length >= 2 && args[0].equals("unpack")) {
+            try (Reader in = new Reader(Paths.get(args[1]))) {
+                PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+                Token t;
+                while ((t = in.nextToken()) != null) {
+                    out.println(t);
+                }
+                out.flush();
+            }
+        } else {
+            System.out.println("Usage: java src.TokenArchive pack <source-file> <archive>");
+            System.out.println("       java src.TokenArchive unpack <archive>");
+        }
+    }
+
+    public static class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final List<Token> block = new ArrayList<>(BLOCK_TOKENS);
+        private final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        private byte[] compressed = new byte[1 << 16];
+        private long written = 8;  // bytes written so far (after the header)
+        private long tokenCount = 0;
+        private final List<long[]> index = new ArrayList<>(); // {offset, first token, first line}
+
+        public Writer(Path file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        public void write(Token t) throws IOException {
+            if (t.getType() == TokenType.EOF) return;
+            block.add(t);
+            if (block.size() == BLOCK_TOKENS) flushBlock();
+        }
+
+        private void flushBlock() throws IOException {
+            if (block.isEmpty()) return;
+            raw.reset();
+            writeVarint(raw, block.size());
+
+            // Types, run-length encoded
+            List<int[]> runs = new ArrayList<>();
+            for (Token t : block) {
+                int type = t.getType().ordinal();
+                if (!runs.isEmpty() && runs.get(runs.size() - 1)[0] == type) runs.get(runs.size() - 1)[1]++;
+                else runs.add(new int[] {type, 1});
+            }
+            writeVarint(raw, runs.size());
+            for (int[] run : runs) {
+                raw.write(run[0]);
+                writeVarint(raw, run[1]);
+            }
+
+            // Lexeme dictionary, then one index per token
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            int[] refs = new int[block.size()];
+            for (int i = 0; i < block.size(); i++) {
+                refs[i] = dictionary.computeIfAbsent(block.get(i).getLexeme(), k -> dictionary.size());
+            }
+            writeVarint(raw, dictionary.size());
+            for (String lexeme : dictionary.keySet()) {
+                byte[] bytes = lexeme.getBytes(StandardCharsets.UTF_8);
+                writeVarint(raw, bytes.length);
+                raw.write(bytes, 0, bytes.length);
+            }
+            for (int ref : refs) writeVarint(raw, ref);
+
+            // Positions as deltas
+            int prevLine = 0, prevCol = 0;
+            for (Token t : block) {
+                int line = t.getLine(), col = t.getColumn();
+                writeVarint(raw, zigzag(line - prevLine));
+                writeVarint(raw, zigzag(line == prevLine ? col - prevCol : col));
+                prevLine = line;
+                prevCol = col;
+            }
+
+            byte[] input = raw.toByteArray();
+            deflater.reset();
+            deflater.setInput(input);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) compressed = Arrays.copyOf(compressed, length * 2);
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+
+            index.add(new long[] {written, tokenCount, block.get(0).getLine()});
+            out.writeInt(length);
+            out.writeInt(input.length);
+            out.write(compressed, 0, length);
+            written += 8 + length;
+            tokenCount += block.size();
+            block.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushBlock();
+            long indexOffset = written;
+            out.writeInt(index.size());
+            out.writeLong(tokenCount);
+            for (long[] entry : index) {
+                out.writeLong(entry[0]);
+                out.writeLong(entry[1]);
+                out.writeInt((int) entry[2]);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+            out.close();
+            deflater.end();
+        }
+    }
+
+    // Streams tokens in order (TokenSource), or decodes single blocks for random access
+    public static class Reader implements TokenSource, Closeable {
+        private final FileChannel channel;
+        private final long[] blockOffsets;
+        private final long[] firstTokens;
+        private final int[] firstLines;
+        private final long tokenCount;
+        private final Inflater inflater = new Inflater();
+        private List<Token> current = Collections.emptyList();
+        private int nextBlock = 0;
+        private int posInBlock = 0;
+
+        public Reader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            long size = channel.size();
+            if (size < 32) {
+                channel.close();
+                throw new IOException("Not a token archive: " + file);
+            }
+            ByteBuffer header = read(0, 8);
+            ByteBuffer trailer = read(size - 12, 12);
+            if (header.getInt() != MAGIC || trailer.getInt(8) != MAGIC) {
+                channel.close();
+                throw new IOException("Not a token archive: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                channel.close();
+                throw new IOException("Unsupported token archive version " + version + ": " + file);
+            }
+            long indexOffset = trailer.getLong(0);
+            ByteBuffer counts = read(indexOffset, 12);
+            int blocks = counts.getInt();
+            tokenCount = counts.getLong();
+            ByteBuffer index = read(indexOffset + 12, blocks * 20);
+            blockOffsets = new long[blocks];
+            firstTokens = new long[blocks];
+            firstLines = new int[blocks];
+            for (int i = 0; i < blocks; i++) {
+                blockOffsets[i] = index.getLong();
+                firstTokens[i] = index.getLong();
+                firstLines[i] = index.getInt();
+            }
+        }
+
+        public int getBlockCount() { return blockOffsets.length; }
+        public long getTokenCount() { return tokenCount; }
+
+        @Override
+        public Token nextToken() throws IOException {
+            while (posInBlock == current.size()) {
+                if (nextBlock == blockOffsets.length) return null;
+                current = readBlock(nextBlock++);
+                posInBlock = 0;
+            }
+            return current.get(posInBlock++);
+        }
+
+        // Token number i of the archive (0-based), decoding only its block
+        public Token get(long i) throws IOException {
+            if (i < 0 || i >= tokenCount) throw new IndexOutOfBoundsException("Token " + i + " of " + tokenCount);
+            int b = Arrays.binarySearch(firstTokens, i);
+            if (b < 0) b = -b - 2;
+            return readBlock(b).get((int) (i - firstTokens[b]));
+        }
+
+        // Block containing the first token on the given line (or the last one starting before it)
+        public int blockForLine(int line) {
+            int lo = 0, hi = firstLines.length - 1, found = 0;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (firstLines[mid] < line) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        public List<Token> readBlock(int b) throws IOException {
+            ByteBuffer head = read(blockOffsets[b], 8);
+            int length = head.getInt();
+            byte[] raw = new byte[head.getInt()];
+            ByteBuffer compressed = read(blockOffsets[b] + 8, length);
+            inflater.reset();
+            inflater.setInput(compressed.array(), 0, length);
+            try {
+                int n = 0;
+                while (n < raw.length && !inflater.finished()) {
+                    int got = inflater.inflate(raw, n, raw.length - n);
+                    if (got == 0 && inflater.needsInput()) break;
+                    n += got;
+                }
+                if (n != raw.length) throw new IOException("Truncated token archive block " + b);
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt token archive block " + b, e);
+            }
+            return decode(ByteBuffer.wrap(raw));
+        }
+
+        private static List<Token> decode(ByteBuffer in) {
+            int count = readVarint(in);
+            TokenType[] types = new TokenType[count];
+            int runs = readVarint(in);
+            for (int r = 0, i = 0; r < runs; r++) {
+                TokenType type = TYPES[in.get()];
+                int length = readVarint(in);
+                for (int k = 0; k < length; k++) types[i++] = type;
+            }
+
+            String[] dictionary = new String[readVarint(in)];
+            for (int d = 0; d < dictionary.length; d++) {
+                int length = readVarint(in);
+                dictionary[d] = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            }
+            int[] refs = new int[count];
+            for (int i = 0; i < count; i++) refs[i] = readVarint(in);
+
+            List<Token> tokens = new ArrayList<>(count);
+            int line = 0, col = 0;
+            for (int i = 0; i < count; i++) {
+                int lineDelta = unzigzag(readVarint(in));
+                int colValue = unzigzag(readVarint(in));
+                col = (lineDelta == 0) ? col + colValue : colValue;
+                line += lineDelta;
+                tokens.add(new Token(types[i], dictionary[refs[i]], line, col));
+            }
+            return tokens;
+        }
+
+        private ByteBuffer read(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException("Truncated token archive");
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            channel.close();
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0, shift = 0, b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    private static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
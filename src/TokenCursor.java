@@ -0,0 +1,122 @@
+package src;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Parser-facing view of a token stream with lookahead (peek(k)) and backtracking (mark/reset).
+// Works over any TokenSource: a ManualScanner, or Yylex via lexer::yylex.
+// Tokens are kept in a ring buffer only from the oldest active mark (or the current token if
+// there is none) up to the furthest lookahead, so memory follows lookahead depth, not file size.
+// Closing the cursor closes its source, for parsers that stop before the end of the input.
+public class TokenCursor implements AutoCloseable {
+    private static final Token EOF = new Token(TokenType.EOF, "", 0, 0);
+
+    private final TokenSource source;
+    private Token[] ring = new Token[16]; // power of two
+    private long start = 0;  // stream index of the oldest buffered token
+    private long end = 0;    // stream index of the next token to pull from the source
+    private long pos = 0;    // stream index of the current token
+    private long[] marks = new long[4];
+    private int markCount = 0;
+    private boolean exhausted = false;
+
+    public TokenCursor(TokenSource source) {
+        this.source = source;
+    }
+
+    // The current token; an EOF token once the input is exhausted
+    public Token peek() throws IOException {
+        return peek(0);
+    }
+
+    // The token k positions ahead of the current one (peek(0) is the current one)
+    public Token peek(int k) throws IOException {
+        if (k < 0) throw new IllegalArgumentException("Lookahead must not be negative: " + k);
+        long index = pos + k;
+        while (end <= index && !exhausted) pull();
+        return (index < end) ? ring[slot(index)] : EOF;
+    }
+
+    // Returns the current token and moves past it
+    public Token next() throws IOException {
+        Token t = peek(0);
+        if (t != EOF) pos++;
+        return t;
+    }
+
+    public boolean atEnd() throws IOException {
+        return peek(0) == EOF;
+    }
+
+    // Remembers the current position; tokens from here on stay buffered until the mark is released
+    public long mark() {
+        if (markCount == marks.length) marks = Arrays.copyOf(marks, markCount * 2);
+        marks[markCount++] = pos;
+        return pos;
+    }
+
+    // Goes back to a position returned by mark(); the mark stays active
+    public void reset(long mark) {
+        if (indexOfMark(mark) < 0) throw new IllegalArgumentException("Not an active mark: " + mark);
+        pos = mark;
+    }
+
+    // Drops a mark so the tokens behind it can be discarded
+    public void release(long mark) {
+        int i = indexOfMark(mark);
+        if (i < 0) throw new IllegalArgumentException("Not an active mark: " + mark);
+        marks[i] = marks[--markCount];
+    }
+
+    @Override
+    public void close() throws IOException {
+        exhausted = true;
+        source.close();
+    }
+
+    // Number of tokens consumed so far
+    public long position() {
+        return pos;
+    }
+
+    // Tokens currently held in the buffer (for checking memory use)
+    public int buffered() {
+        return (int) (end - start);
+    }
+
+    private void pull() throws IOException {
+        Token t = source.nextToken();
+        if (t == null || t.getType() == TokenType.EOF) {
+            exhausted = true;
+            return;
+        }
+        if (end - start == ring.length) makeRoom();
+        ring[slot(end)] = t;
+        end++;
+    }
+
+    // Discards tokens nothing can go back to; grows the ring only if all of them are still needed
+    private void makeRoom() {
+        long keep = pos;
+        for (int i = 0; i < markCount; i++) keep = Math.min(keep, marks[i]);
+        for (; start < keep; start++) ring[slot(start)] = null;
+        if (end - start < ring.length) return;
+
+        Token[] bigger = new Token[ring.length * 2];
+        for (long i = start; i < end; i++) {
+            bigger[(int) (i & (bigger.length - 1))] = ring[slot(i)];
+        }
+        ring = bigger;
+    }
+
+    private int slot(long index) {
+        return (int) (index & (ring.length - 1));
+    }
+
+    private int indexOfMark(long mark) {
+        for (int i = markCount - 1; i >= 0; i--) {
+            if (marks[i] == mark) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,15 @@
+package src;
+
+// Push-style access to a scan: scan(listener) on ManualScanner, Yylex or YylexInt calls these as
+// it goes, so output, statistics and symbol collection can all run in the one pass, without a
+// token list.
+// Only onToken is required; comments and errors are also collected by the scanner as before.
+public interface TokenListener {
+    void onToken(Token t);
+
+    default void onComment(int line, int column, boolean multiLine) { }
+
+    default void onError(String type, int line, int column, String lexeme, String reason) { }
+
+    default void onEnd(int lines, int comments) { }
+}
@@ -0,0 +1,151 @@
+package src;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Reactive stream of tokens that honours subscriber demand.
+// Tokens are pulled from the scanner only when requested, so a slow consumer
+// throttles the lexer instead of the whole token list being built up front.
+// The EOF token is not published; end of input is signalled with onComplete().
+// The source is closed when the stream ends, whether it completed, failed or was cancelled.
+public class TokenPublisher implements Flow.Publisher<Token> {
+    private final TokenSource source;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    public TokenPublisher(TokenSource source) {
+        this(source, ForkJoinPool.commonPool());
+    }
+
+    public TokenPublisher(TokenSource source, Executor executor) {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Token> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber");
+
+        // A scanner can only be consumed once, so only the first subscriber gets the tokens
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                public void request(long n) { }
+                public void cancel() { }
+            });
+            subscriber.onError(new IllegalStateException("TokenPublisher allows only one subscriber"));
+            return;
+        }
+        TokenSubscription subscription = new TokenSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private class TokenSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Token> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        // The first bad request's error, delivered by drain() so signals stay serial
+        private final AtomicReference<Throwable> badRequest = new AtomicReference<>();
+        private boolean done = false; // only touched from drain()
+
+        TokenSubscription(Flow.Subscriber<? super Token> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // Rule 3.9 of the reactive streams spec
+                badRequest.compareAndSet(null, new IllegalArgumentException("non-positive request: " + n));
+                schedule();
+                return;
+            }
+            long current, next;
+            do {
+                current = demand.get();
+                next = current + n;
+                if (next < 0) next = Long.MAX_VALUE; // demand is unbounded once it overflows
+            } while (!demand.compareAndSet(current, next));
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule(); // the source is closed from drain(), never while it is being read
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        // Emits as many tokens as have been requested. Only one drain runs at a time (guarded by wip),
+        // and requests arriving while it runs are picked up by the outer loop. A bad request ends
+        // the stream with onError from here too, never concurrently with onNext. So does an
+        // onNext that throws: the subscription is cancelled rather than left stalled mid-drain.
+        private void drain() {
+            int missed = 1;
+            do {
+                if (done) return;
+                if (cancelled) {
+                    closeSource();
+                    return;
+                }
+                if (badRequest.get() != null) {
+                    cancelled = true;
+                    closeSource();
+                    subscriber.onError(badRequest.get());
+                    return;
+                }
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted < requested && !cancelled && !done && badRequest.get() == null) {
+                    Token t;
+                    try {
+                        t = source.nextToken();
+                    } catch (IOException | RuntimeException e) {
+                        closeSource();
+                        subscriber.onError(e);
+                        return;
+                    }
+                    if (t == null || t.getType() == TokenType.EOF) {
+                        closeSource();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    try {
+                        subscriber.onNext(t);
+                    } catch (RuntimeException e) {
+                        cancelled = true; // rule 2.13: the subscriber broke the contract
+                        closeSource();
+                        subscriber.onError(e);
+                        return;
+                    }
+                    emitted++;
+                }
+                if (emitted > 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // Ends the stream. A failure to close is not signalled: the stream's outcome is already decided.
+        private void closeSource() {
+            done = true;
+            try {
+                source.close();
+            } catch (IOException e) {
+                // not signalled, see above
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package src;
+
+import java.io.IOException;
+
+// Pull-style access to a scanner: one token per call, null once the input is exhausted.
+// ManualScanner implements it directly; Yylex can be adapted with lexer::yylex.
+// close() releases the input (a file, a decompression thread) when a caller stops early;
+// closing a source twice, or after it was read to the end, is harmless.
+public interface TokenSource extends AutoCloseable {
+    Token nextToken() throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
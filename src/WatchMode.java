@@ -0,0 +1,282 @@
+package src;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+// Long-running watch over a project tree. Every .lang file is lexed once; after that only files
+// whose contents actually changed are re-lexed. Per-file results stay in memory, and the aggregate
+// statistics and symbol table are updated by removing a file's old contribution and adding the new one.
+//
+// Usage: java src.WatchMode <directory>
+public class WatchMode {
+    private static final long DEBOUNCE_MS = 200; // quiet period that ends a burst of events
+
+    // Everything one file contributes to the aggregate
+    private static class FileResult {
+        byte[] digest;
+        List<Token> tokens;
+        SymbolTable symbols = new SymbolTable();
+        ErrorHandler errors;
+        Map<TokenType, Integer> tokenCounts = new EnumMap<>(TokenType.class);
+        int totalTokens;
+        int lines;
+        int comments;
+    }
+
+    private final Path root;
+    private final WatchService watcher;
+    private final Map<WatchKey, Path> dirs = new HashMap<>();
+    private final Set<Path> registered = new HashSet<>(); // the values of dirs, for lookups
+    private final Map<Path, FileResult> files = new HashMap<>();
+
+    // Aggregate over all files
+    private final SymbolTable symbols = new SymbolTable();
+    private final Map<TokenType, Integer> tokenCounts = new EnumMap<>(TokenType.class);
+    private int totalTokens, totalLines, totalComments, totalErrors;
+
+    public WatchMode(Path root) throws IOException {
+        this.root = root;
+        this.watcher = root.getFileSystem().newWatchService();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path root = Paths.get((args.length > 0) ? args[0] : "tests");
+        WatchMode watch = new WatchMode(root);
+        watch.start();
+        System.out.println("\nWatching " + root + " for changes (Ctrl+C to stop)");
+        watch.run();
+    }
+
+    public List<Token> getTokens(Path file) {
+        FileResult r = files.get(file);
+        return (r == null) ? null : r.tokens;
+    }
+
+    public SymbolTable getSymbolTable() { return symbols; }
+
+    // Registers the tree and lexes every file once
+    public void start() throws IOException {
+        long started = System.nanoTime();
+        List<Path> lexed = new ArrayList<>();
+        for (Path file : registerAll(root)) {
+            if (update(file)) lexed.add(file);
+        }
+        printSummary(lexed, started);
+        symbols.printTable();
+    }
+
+    public void run() throws InterruptedException {
+        while (true) {
+            WatchKey key = watcher.take();
+            long started = System.nanoTime();
+            Set<Path> changed = new LinkedHashSet<>();
+            collect(key, changed);
+
+            // Debounce: editors save in bursts (truncate, write, rename), so keep collecting until quiet
+            while ((key = watcher.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                collect(key, changed);
+            }
+
+            List<Path> relexed = new ArrayList<>();
+            for (Path file : changed) {
+                if (update(file)) relexed.add(file);
+            }
+            if (!relexed.isEmpty()) printSummary(relexed, started);
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path dir = dirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // Events were lost: fall back to checking everything (unchanged files are skipped by digest)
+                changed.addAll(files.keySet());
+                changed.addAll(registerAll(root));
+                continue;
+            }
+            if (dir == null) continue;
+            Path child = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                changed.addAll(registerAll(child));
+            } else if (isSourceFile(child)) {
+                changed.add(child);
+            } else if (event.kind() == ENTRY_DELETE) {
+                // A deleted directory: drop every file we had under it
+                for (Path known : files.keySet()) {
+                    if (known.startsWith(child)) changed.add(known);
+                }
+            }
+        }
+        if (!key.reset()) registered.remove(dirs.remove(key));
+    }
+
+    // Registers all directories under start with the watcher and returns the source files found
+    private List<Path> registerAll(Path start) {
+        List<Path> found = new ArrayList<>();
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (!registered.contains(dir)) {
+                        dirs.put(dir.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                        registered.add(dir);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (isSourceFile(file)) found.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE; // vanished between listing and visiting
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error watching " + start + ": " + e.getMessage());
+        }
+        return found;
+    }
+
+    static boolean isSourceFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".lang") || (name.contains(".lang.") && CompressedInput.isCompressed(name));
+    }
+
+    // Re-lexes one file if its contents changed. Returns whether the aggregate changed.
+    private boolean update(Path file) {
+        FileResult old = files.get(file);
+        byte[] bytes = null;
+        if (Files.isRegularFile(file)) {
+            try {
+                bytes = Files.readAllBytes(file);
+            } catch (IOException e) {
+                // Deleted or still being replaced; a later event will bring it back
+            }
+        }
+
+        if (bytes == null) {
+            if (old == null) return false;
+            remove(old);
+            files.remove(file);
+            return true;
+        }
+
+        byte[] digest = digest(bytes);
+        if (old != null && Arrays.equals(old.digest, digest)) return false; // touched, not changed
+
+        FileResult result;
+        try {
+            result = lex(file, bytes);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + file + ": " + e.getMessage());
+            return false;
+        }
+        result.digest = digest;
+        if (old != null) remove(old);
+        add(result);
+        files.put(file, result);
+        return true;
+    }
+
+    private FileResult lex(Path file, byte[] bytes) throws IOException {
+        Reader reader = CompressedInput.isCompressed(file.toString())
+                ? CompressedInput.open(file.toString())
+                : new InputStreamReader(new ByteArrayInputStream(bytes));
+        FileResult r = new FileResult();
+        try (ManualScanner scanner = new ManualScanner(reader)) {
+            r.tokens = scanner.scan();
+            r.errors = scanner.getErrorHandler();
+            r.lines = scanner.getLineCount();
+            r.comments = scanner.getCommentCount();
+        }
+        for (Token t : r.tokens) {
+            if (t.getType() == TokenType.EOF) break;
+            r.totalTokens++;
+            r.tokenCounts.merge(t.getType(), 1, Integer::sum);
+            if (t.getType() == TokenType.IDENTIFIER) {
+                r.symbols.add(t.getLexeme(), "IDENTIFIER", t.getLine());
+            }
+        }
+        return r;
+    }
+
+    private void add(FileResult r) {
+        totalTokens += r.totalTokens;
+        totalLines += r.lines;
+        totalComments += r.comments;
+        totalErrors += r.errors.getErrorCount();
+        r.tokenCounts.forEach((type, n) -> tokenCounts.merge(type, n, Integer::sum));
+        symbols.merge(r.symbols);
+    }
+
+    private void remove(FileResult r) {
+        totalTokens -= r.totalTokens;
+        totalLines -= r.lines;
+        totalComments -= r.comments;
+        totalErrors -= r.errors.getErrorCount();
+        r.tokenCounts.forEach((type, n) -> {
+            if (tokenCounts.merge(type, -n, Integer::sum) == 0) tokenCounts.remove(type);
+        });
+
+        // Names whose first line came from this file get it recomputed from the remaining files
+        for (String name : symbols.subtract(r.symbols)) {
+            int first = Integer.MAX_VALUE;
+            for (FileResult other : files.values()) {
+                if (other != r && other.symbols.getFrequency(name) > 0) {
+                    first = Math.min(first, other.symbols.getFirstLine(name));
+                }
+            }
+            symbols.setFirstLine(name, first);
+        }
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JDK ships SHA-256
+        }
+    }
+
+    private void printSummary(List<Path> relexed, long started) {
+        long ms = (System.nanoTime() - started) / 1_000_000;
+        System.out.println("\n================ RE-LEXED " + relexed.size() + " FILE(S) in " + ms + " ms ================");
+        for (Path file : relexed) {
+            FileResult r = files.get(file);
+            if (r == null) {
+                System.out.println("  " + root.relativize(file) + " (removed)");
+                continue;
+            }
+            System.out.println("  " + root.relativize(file) + ": " + r.totalTokens + " tokens, "
+                               + r.errors.getErrorCount() + " errors");
+            r.errors.printErrors();
+        }
+
+        System.out.println("\n================ STATISTICS ================");
+        System.out.println("Files: " + files.size());
+        System.out.println("Total Tokens: " + totalTokens);
+        System.out.println("Lines Processed: " + totalLines);
+        System.out.println("Comments Removed: " + totalComments);
+        System.out.println("Errors: " + totalErrors);
+        System.out.println("Symbols: " + symbols.size());
+
+        System.out.println("\nToken Distribution:");
+        for (Map.Entry<TokenType, Integer> e : tokenCounts.entrySet()) {
+            System.out.println("  " + e.getKey() + ": " + e.getValue());
+        }
+    }
+}
@@ -359,6 +359,37 @@ public class Yylex {
       return new Token(type, yytext(), yyline + 1, yycolumn + 1);
   }
 
+  // Push-style scan, as ManualScanner.scan(TokenListener): tokens, comments and ERROR tokens
+  // (as onError) go to the listener during the one pass, and onEnd gets the newlines seen + 1.
+  private TokenListener listener;
+  private int commentCount = 0;
+
+  public int getCommentCount() { return commentCount; }
+
+  public void scan(TokenListener listener) throws IOException {
+      this.listener = listener;
+      try {
+          Token t;
+          while ((t = yylex()) != null) {
+              if (t.getType() == TokenType.ERROR) {
+                  listener.onError("Lexical Error", t.getLine(), t.getColumn(), t.getLexeme(), "Invalid character");
+              } else {
+                  listener.onToken(t);
+              }
+          }
+          listener.onEnd(yyline + 1, commentCount);
+      } finally {
+          this.listener = null;
+      }
+  }
+
+  // Comments and whitespace produce no token; comments are counted and passed to the listener
+  private void skipped() {
+      if (yycharat(0) != '#') return;
+      commentCount++;
+      if (listener != null) listener.onComment(yyline + 1, yycolumn + 1, yycharat(1) == '*');
+  }
+
 
   /**
    * Creates a new scanner
@@ -776,7 +807,7 @@ public class Yylex {
           // fall through
           case 16: break;
           case 2:
-            { /* Ignore */
+            { skipped();
             }
           // fall through
           case 17: break;
@@ -0,0 +1,876 @@
+// DO NOT EDIT
+// Generated by JFlex 1.9.1 http://jflex.de/
+// source: src/ScannerInt.flex
+
+package src;
+import java.io.IOException;
+
+/* Allocation-free variant of Scanner.flex: yylex() returns TokenType ordinals instead of
+   Token objects, and the match is read through accessors. Line/column are not tracked per
+   character (%char only); newlines are recorded into a LineIndex and resolved on demand. */
+
+
+@SuppressWarnings("fallthrough")
+public class YylexInt implements TokenSource {
+
+  /** This character denotes the end of file. */
+  public static final int YYEOF = -1;
+
+  /** Initial size of the lookahead buffer. */
+  private static final int ZZ_BUFFERSIZE = 16384;
+
+  // Lexical states.
+  public static final int YYINITIAL = 0;
+
+  /**
+   * ZZ_LEXSTATE[l] is the state in the DFA for the lexical state l
+   * ZZ_LEXSTATE[l+1] is the state in the DFA for the lexical state l
+   *                  at the beginning of a line
+   * l is of the form l = 2*k, k a non negative integer
+   */
+  private static final int ZZ_LEXSTATE[] = {
+     0, 0
+  };
+
+  /**
+   * Top-level table for translating characters to character classes
+   */
+  private static final int [] ZZ_CMAP_TOP = zzUnpackcmap_top();
+
+  private static final String ZZ_CMAP_TOP_PACKED_0 =
+    "\1\0\37\u0100\1\u0200\267\u0100\10\u0300\u1020\u0100";
+
+  private static int [] zzUnpackcmap_top() {
+    int [] result = new int[4352];
+    int offset = 0;
+    offset = zzUnpackcmap_top(ZZ_CMAP_TOP_PACKED_0, offset, result);
+    return result;
+  }
+
+  private static int zzUnpackcmap_top(String packed, int offset, int [] result) {
+    int i = 0;       /* index in packed string  */
+    int j = offset;  /* index in unpacked array */
+    int l = packed.length();
+    while (i < l) {
+      int count = packed.charAt(i++);
+      int value = packed.charAt(i++);
+      do result[j++] = value; while (--count > 0);
+    }
+    return j;
+  }
+
+
+  /**
+   * Second-level tables for translating characters to character classes
+   */
+  private static final int [] ZZ_CMAP_BLOCKS = zzUnpackcmap_blocks();
+
+  private static final String ZZ_CMAP_BLOCKS_PACKED_0 =
+    "\11\0\1\1\1\2\2\3\1\4\22\0\1\1\1\5"+
+    "\1\6\1\7\1\0\1\10\1\11\1\12\2\13\1\14"+
+    "\1\15\1\13\1\16\1\17\1\20\12\21\2\13\1\22"+
+    "\1\23\1\22\2\0\4\24\1\25\25\24\1\13\1\26"+
+    "\1\13\1\0\1\27\1\0\1\30\1\31\1\32\1\33"+
+    "\1\34\1\35\1\27\1\36\1\37\1\27\1\40\1\41"+
+    "\1\27\1\42\1\43\1\44\1\27\1\45\1\46\1\47"+
+    "\1\50\5\27\1\13\1\51\1\13\7\0\1\3\u01a2\0"+
+    "\2\3\326\0\u0100\3";
+
+  private static int [] zzUnpackcmap_blocks() {
+    int [] result = new int[1024];
+    int offset = 0;
+    offset = zzUnpackcmap_blocks(ZZ_CMAP_BLOCKS_PACKED_0, offset, result);
+    return result;
+  }
+
+  private static int zzUnpackcmap_blocks(String packed, int offset, int [] result) {
+    int i = 0;       /* index in packed string  */
+    int j = offset;  /* index in unpacked array */
+    int l = packed.length();
+    while (i < l) {
+      int count = packed.charAt(i++);
+      int value = packed.charAt(i++);
+      do result[j++] = value; while (--count > 0);
+    }
+    return j;
+  }
+
+  /**
+   * Translates DFA states to action switch labels.
+   */
+  private static final int [] ZZ_ACTION = zzUnpackAction();
+
+  private static final String ZZ_ACTION_PACKED_0 =
+    "\1\0\1\1\1\2\1\3\2\1\1\4\2\1\1\5"+
+    "\4\4\1\6\1\7\1\10\1\11\14\1\1\7\1\0"+
+    "\1\12\1\0\1\13\1\0\1\3\2\0\1\10\1\14"+
+    "\1\0\1\11\16\0\1\15\1\16\1\11\14\0\1\2"+
+    "\1\16\1\0\1\11\4\0\1\17\4\0\1\20\1\16"+
+    "\1\0\1\16\1\11\5\0\1\16\1\11\2\0\1\16"+
+    "\1\11\1\16\30\11";
+
+  private static int [] zzUnpackAction() {
+    int [] result = new int[126];
+    int offset = 0;
+    offset = zzUnpackAction(ZZ_ACTION_PACKED_0, offset, result);
+    return result;
+  }
+
+  private static int zzUnpackAction(String packed, int offset, int [] result) {
+    int i = 0;       /* index in packed string  */
+    int j = offset;  /* index in unpacked array */
+    int l = packed.length();
+    while (i < l) {
+      int count = packed.charAt(i++);
+      int value = packed.charAt(i++);
+      do result[j++] = value; while (--count > 0);
+    }
+    return j;
+  }
+
+
+  /**
+   * Translates a state to a row index in the transition table
+   */
+  private static final int [] ZZ_ROWMAP = zzUnpackRowMap();
+
+  private static final String ZZ_ROWMAP_PACKED_0 =
+    "\0\0\0\52\0\124\0\176\0\250\0\322\0\52\0\374"+
+    "\0\u0126\0\52\0\u0150\0\u017a\0\u01a4\0\u01ce\0\u01f8\0\176"+
+    "\0\176\0\u0222\0\u024c\0\u0276\0\u02a0\0\u02ca\0\u02f4\0\u031e"+
+    "\0\u0348\0\u0372\0\u039c\0\u03c6\0\u03f0\0\u041a\0\52\0\250"+
+    "\0\52\0\u0444\0\u046e\0\u0498\0\52\0\u04c2\0\u04ec\0\52"+
+    "\0\52\0\u0516\0\u0540\0\u056a\0\u0594\0\u05be\0\u05e8\0\u0612"+
+    "\0\u063c\0\u0666\0\u0690\0\u06ba\0\u06e4\0\u070e\0\u0738\0\u0762"+
+    "\0\u078c\0\52\0\u07b6\0\u07e0\0\u080a\0\u0834\0\u085e\0\u0888"+
+    "\0\u08b2\0\u08dc\0\u0906\0\u0930\0\u095a\0\u0984\0\u09ae\0\u09d8"+
+    "\0\52\0\u0a02\0\u0a2c\0\u0a56\0\u0a80\0\u0aaa\0\u0ad4\0\u0afe"+
+    "\0\52\0\u0b28\0\u0b52\0\u0b7c\0\u0ba6\0\52\0\u0bd0\0\u0bfa"+
+    "\0\u0bfa\0\u0c24\0\u0c4e\0\u0c78\0\u0ca2\0\u0ccc\0\u0cf6\0\u0d20"+
+    "\0\u0d4a\0\u0d74\0\u0d9e\0\u0dc8\0\u0df2\0\u0e1c\0\u0e46\0\u0e70"+
+    "\0\u0e9a\0\u0ec4\0\u0eee\0\u0f18\0\u0f42\0\u0f6c\0\u0f96\0\u0fc0"+
+    "\0\u0fea\0\u1014\0\u103e\0\u1068\0\u1092\0\u10bc\0\u10e6\0\u1110"+
+    "\0\u113a\0\u1164\0\u118e\0\u11b8\0\u11e2\0\52";
+
+  private static int [] zzUnpackRowMap() {
+    int [] result = new int[126];
+    int offset = 0;
+    offset = zzUnpackRowMap(ZZ_ROWMAP_PACKED_0, offset, result);
+    return result;
+  }
+
+  private static int zzUnpackRowMap(String packed, int offset, int [] result) {
+    int i = 0;  /* index in packed string  */
+    int j = offset;  /* index in unpacked array */
+    int l = packed.length() - 1;
+    while (i < l) {
+      int high = packed.charAt(i++) << 16;
+      result[j++] = high | packed.charAt(i++);
+    }
+    return j;
+  }
+
+  /**
+   * The transition table of the DFA
+   */
+  private static final int [] ZZ_TRANS = zzUnpacktrans();
+
+  private static final String ZZ_TRANS_PACKED_0 =
+    "\1\2\2\3\1\2\1\3\1\4\1\5\1\6\1\7"+
+    "\1\10\1\11\1\12\1\13\1\14\1\15\1\2\1\16"+
+    "\1\17\1\20\1\21\2\22\3\2\1\23\1\24\1\25"+
+    "\1\26\1\27\1\2\1\30\1\2\1\31\1\2\1\32"+
+    "\1\2\1\33\1\34\1\35\1\2\1\36\53\0\2\3"+
+    "\1\0\1\3\70\0\1\37\26\0\2\40\1\0\3\40"+
+    "\1\41\17\40\1\42\23\40\7\0\1\43\4\0\1\44"+
+    "\46\0\1\45\40\0\2\46\1\0\23\46\1\47\23\46"+
+    "\14\0\1\7\6\0\1\50\43\0\1\51\3\0\1\17"+
+    "\1\0\1\50\44\0\1\51\2\0\1\17\1\0\1\50"+
+    "\51\0\1\50\45\0\1\52\1\0\1\17\51\0\1\53"+
+    "\5\0\22\53\46\0\1\54\47\0\1\55\42\0\1\56"+
+    "\56\0\1\57\40\0\1\60\6\0\1\61\10\0\1\62"+
+    "\43\0\1\63\52\0\1\64\56\0\1\65\35\0\1\66"+
+    "\64\0\1\67\47\0\1\70\55\0\1\45\2\40\3\0"+
+    "\45\40\2\43\1\0\47\43\14\44\1\71\35\44\12\0"+
+    "\1\72\37\0\2\46\3\0\45\46\21\0\1\73\51\0"+
+    "\1\74\5\0\22\74\35\0\1\75\57\0\1\76\41\0"+
+    "\1\77\65\0\1\100\44\0\1\101\52\0\1\102\51\0"+
+    "\1\103\53\0\1\104\50\0\1\105\55\0\1\63\51\0"+
+    "\1\106\32\0\1\107\71\0\1\110\1\0\7\44\1\111"+
+    "\4\44\1\71\35\44\21\0\1\112\3\0\1\113\6\0"+
+    "\1\113\36\0\1\114\5\0\22\114\31\0\1\115\54\0"+
+    "\1\116\13\0\1\117\43\0\1\120\44\0\1\121\63\0"+
+    "\1\110\42\0\1\122\44\0\1\123\67\0\1\124\45\0"+
+    "\1\121\55\0\1\125\46\0\1\124\40\0\1\126\36\0"+
+    "\1\127\3\0\1\113\6\0\1\113\32\0\2\130\2\0"+
+    "\1\131\51\0\1\132\5\0\22\132\41\0\1\121\50\0"+
+    "\1\123\51\0\1\133\42\0\1\134\67\0\1\135\52\0"+
+    "\1\136\51\0\1\121\47\0\1\137\25\0\1\140\3\0"+
+    "\1\113\6\0\1\113\36\0\1\131\51\0\1\141\5\0"+
+    "\22\141\43\0\1\142\54\0\1\100\42\0\1\121\52\0"+
+    "\1\143\54\0\1\121\30\0\1\144\3\0\1\113\6\0"+
+    "\1\113\36\0\1\145\5\0\22\145\51\0\1\100\44\0"+
+    "\1\137\27\0\1\146\3\0\1\113\6\0\1\113\36\0"+
+    "\1\147\5\0\22\147\26\0\1\113\6\0\1\113\36\0"+
+    "\1\150\5\0\22\150\22\0\1\151\5\0\22\151\22\0"+
+    "\1\152\5\0\22\152\22\0\1\153\5\0\22\153\22\0"+
+    "\1\154\5\0\22\154\22\0\1\155\5\0\22\155\22\0"+
+    "\1\156\5\0\22\156\22\0\1\157\5\0\22\157\22\0"+
+    "\1\160\5\0\22\160\22\0\1\161\5\0\22\161\22\0"+
+    "\1\162\5\0\22\162\22\0\1\163\5\0\22\163\22\0"+
+    "\1\164\5\0\22\164\22\0\1\165\5\0\22\165\22\0"+
+    "\1\166\5\0\22\166\22\0\1\167\5\0\22\167\22\0"+
+    "\1\170\5\0\22\170\22\0\1\171\5\0\22\171\22\0"+
+    "\1\172\5\0\22\172\22\0\1\173\5\0\22\173\22\0"+
+    "\1\174\5\0\22\174\22\0\1\175\5\0\22\175\22\0"+
+    "\1\176\5\0\22\176\1\0";
+
+  private static int [] zzUnpacktrans() {
+    int [] result = new int[4620];
+    int offset = 0;
+    offset = zzUnpacktrans(ZZ_TRANS_PACKED_0, offset, result);
+    return result;
+  }
+
+  private static int zzUnpacktrans(String packed, int offset, int [] result) {
+    int i = 0;       /* index in packed string  */
+    int j = offset;  /* index in unpacked array */
+    int l = packed.length();
+    while (i < l) {
+      int count = packed.charAt(i++);
+      int value = packed.charAt(i++);
+      value--;
+      do result[j++] = value; while (--count > 0);
+    }
+    return j;
+  }
+
+
+  /** Error code for "Unknown internal scanner error". */
+  private static final int ZZ_UNKNOWN_ERROR = 0;
+  /** Error code for "could not match input". */
+  private static final int ZZ_NO_MATCH = 1;
+  /** Error code for "pushback value was too large". */
+  private static final int ZZ_PUSHBACK_2BIG = 2;
+
+  /**
+   * Error messages for {@link #ZZ_UNKNOWN_ERROR}, {@link #ZZ_NO_MATCH}, and
+   * {@link #ZZ_PUSHBACK_2BIG} respectively.
+   */
+  private static final String ZZ_ERROR_MSG[] = {
+    "Unknown internal scanner error",
+    "Error: could not match input",
+    "Error: pushback value was too large"
+  };
+
+  /**
+   * ZZ_ATTRIBUTE[aState] contains the attributes of state {@code aState}
+   */
+  private static final int [] ZZ_ATTRIBUTE = zzUnpackAttribute();
+
+  private static final String ZZ_ATTRIBUTE_PACKED_0 =
+    "\1\0\1\11\4\1\1\11\2\1\1\11\24\1\1\11"+
+    "\1\0\1\11\1\0\1\1\1\0\1\11\2\0\2\11"+
+    "\1\0\1\1\16\0\1\11\2\1\14\0\1\11\1\1"+
+    "\1\0\1\1\4\0\1\11\4\0\1\11\1\1\1\0"+
+    "\2\1\5\0\2\1\2\0\32\1\1\11";
+
+  private static int [] zzUnpackAttribute() {
+    int [] result = new int[126];
+    int offset = 0;
+    offset = zzUnpackAttribute(ZZ_ATTRIBUTE_PACKED_0, offset, result);
+    return result;
+  }
+
+  private static int zzUnpackAttribute(String packed, int offset, int [] result) {
+    int i = 0;       /* index in packed string  */
+    int j = offset;  /* index in unpacked array */
+    int l = packed.length();
+    while (i < l) {
+      int count = packed.charAt(i++);
+      int value = packed.charAt(i++);
+      do result[j++] = value; while (--count > 0);
+    }
+    return j;
+  }
+
+  /** Input device. */
+  private java.io.Reader zzReader;
+
+  /** Current state of the DFA. */
+  private int zzState;
+
+  /** Current lexical state. */
+  private int zzLexicalState = YYINITIAL;
+
+  /**
+   * This buffer contains the current text to be matched and is the source of the {@link #yytext()}
+   * string.
+   */
+  private char zzBuffer[] = new char[Math.min(ZZ_BUFFERSIZE, zzMaxBufferLen())];
+
+  /** Text position at the last accepting state. */
+  private int zzMarkedPos;
+
+  /** Current text position in the buffer. */
+  private int zzCurrentPos;
+
+  /** Marks the beginning of the {@link #yytext()} string in the buffer. */
+  private int zzStartRead;
+
+  /** Marks the last character in the buffer, that has been read from input. */
+  private int zzEndRead;
+
+  /**
+   * Whether the scanner is at the end of file.
+   * @see #yyatEOF
+   */
+  private boolean zzAtEOF;
+
+  /**
+   * The number of occupied positions in {@link #zzBuffer} beyond {@link #zzEndRead}.
+   *
+   * <p>When a lead/high surrogate has been read from the input stream into the final
+   * {@link #zzBuffer} position, this will have a value of 1; otherwise, it will have a value of 0.
+   */
+  private int zzFinalHighSurrogate = 0;
+
+  /** Number of newlines encountered up to the start of the matched text. */
+  @SuppressWarnings("unused")
+  private int yyline;
+
+  /** Number of characters from the last newline up to the start of the matched text. */
+  @SuppressWarnings("unused")
+  private int yycolumn;
+
+  /** Number of characters up to the start of the matched text. */
+  private long yychar;
+
+  /** Whether the scanner is currently at the beginning of a line. */
+  @SuppressWarnings("unused")
+  private boolean zzAtBOL = true;
+
+  /** Whether the user-EOF-code has already been executed. */
+  @SuppressWarnings("unused")
+  private boolean zzEOFDone;
+
+  /* user code: */
+  private static final TokenType[] TYPES = TokenType.values();
+  private final LineIndex lines = new LineIndex();
+
+  private int code(TokenType type) {
+      return type.ordinal();
+  }
+
+  // Records the newlines inside the current match (whitespace and comments)
+  private void markLines() {
+      int len = yylength();
+      for (int i = 0; i < len; i++) {
+          if (yycharat(i) == '\n') lines.addLineStart(yychar + i + 1);
+      }
+  }
+
+  public static TokenType typeOf(int code) { return TYPES[code]; }
+
+  public long getStartOffset() { return yychar; }
+  public long getEndOffset() { return yychar + yylength(); }
+  public int getLine() { return lines.lineOf(yychar); }
+  public int getColumn() { return lines.columnOf(yychar); }
+  public LineIndex getLineIndex() { return lines; }
+
+  // Builds a Token for the current match; only called when a consumer actually wants one
+  public Token token(int code) {
+      return new Token(TYPES[code], yytext(), yychar, lines);
+  }
+
+  @Override
+  public Token nextToken() throws IOException {
+      int code = yylex();
+      return code == YYEOF ? null : token(code);
+  }
+
+  @Override
+  public void close() throws IOException {
+      yyclose();
+  }
+
+  // Push-style scan, as ManualScanner.scan(TokenListener): during the one pass, matches go to the
+  // listener as Tokens, ERROR matches as onError and comments as onComment.
+  private TokenListener listener;
+  private int commentCount = 0;
+
+  public int getCommentCount() { return commentCount; }
+
+  public void scan(TokenListener listener) throws IOException {
+      this.listener = listener;
+      try {
+          int code;
+          while ((code = yylex()) != YYEOF) {
+              if (TYPES[code] == TokenType.ERROR) {
+                  listener.onError("Lexical Error", getLine(), getColumn(), yytext(), "Invalid character");
+              } else {
+                  listener.onToken(token(code));
+              }
+          }
+          listener.onEnd(lines.getLineCount(), commentCount);
+      } finally {
+          this.listener = null;
+      }
+  }
+
+  private void comment(boolean multiLine) {
+      commentCount++;
+      if (listener != null) listener.onComment(getLine(), getColumn(), multiLine);
+  }
+
+  // Multi-line comments and whitespace: their newlines are recorded, comments also counted
+  private void skipped() {
+      markLines();
+      if (yycharat(0) == '#') comment(true);
+  }
+
+
+  /**
+   * Creates a new scanner
+   *
+   * @param   in  the java.io.Reader to read input from.
+   */
+  public YylexInt(java.io.Reader in) {
+    this.zzReader = in;
+  }
+
+
+  /** Returns the maximum size of the scanner buffer, which limits the size of tokens. */
+  private int zzMaxBufferLen() {
+    return Integer.MAX_VALUE;
+  }
+
+  /**  Whether the scanner buffer can grow to accommodate a larger token. */
+  private boolean zzCanGrow() {
+    return true;
+  }
+
+  /**
+   * Translates raw input code points to DFA table row
+   */
+  private static int zzCMap(int input) {
+    int offset = input & 255;
+    return offset == input ? ZZ_CMAP_BLOCKS[offset] : ZZ_CMAP_BLOCKS[ZZ_CMAP_TOP[input >> 8] | offset];
+  }
+
+  /**
+   * Refills the input buffer.
+   *
+   * @return {@code false} iff there was new input.
+   * @exception java.io.IOException  if any I/O-Error occurs
+   */
+  private boolean zzRefill() throws java.io.IOException {
+
+    /* first: make room (if you can) */
+    if (zzStartRead > 0) {
+      zzEndRead += zzFinalHighSurrogate;
+      zzFinalHighSurrogate = 0;
+      System.arraycopy(zzBuffer, zzStartRead,
+                       zzBuffer, 0,
+                       zzEndRead - zzStartRead);
+
+      /* translate stored positions */
+      zzEndRead -= zzStartRead;
+      zzCurrentPos -= zzStartRead;
+      zzMarkedPos -= zzStartRead;
+      zzStartRead = 0;
+    }
+
+    /* is the buffer big enough? */
+    if (zzCurrentPos >= zzBuffer.length - zzFinalHighSurrogate && zzCanGrow()) {
+      /* if not, and it can grow: blow it up */
+      char newBuffer[] = new char[Math.min(zzBuffer.length * 2, zzMaxBufferLen())];
+      System.arraycopy(zzBuffer, 0, newBuffer, 0, zzBuffer.length);
+      zzBuffer = newBuffer;
+      zzEndRead += zzFinalHighSurrogate;
+      zzFinalHighSurrogate = 0;
+    }
+
+    /* fill the buffer with new input */
+    int requested = zzBuffer.length - zzEndRead;
+    int numRead = zzReader.read(zzBuffer, zzEndRead, requested);
+
+    /* not supposed to occur according to specification of java.io.Reader */
+    if (numRead == 0) {
+      if (requested == 0) {
+        throw new java.io.EOFException("Scan buffer limit reached ["+zzBuffer.length+"]");
+      }
+      else {
+        throw new java.io.IOException(
+            "Reader returned 0 characters. See JFlex examples/zero-reader for a workaround.");
+      }
+    }
+    if (numRead > 0) {
+      zzEndRead += numRead;
+      if (Character.isHighSurrogate(zzBuffer[zzEndRead - 1])) {
+        if (numRead == requested) { // We requested too few chars to encode a full Unicode character
+          --zzEndRead;
+          zzFinalHighSurrogate = 1;
+        } else {                    // There is room in the buffer for at least one more char
+          int c = zzReader.read();  // Expecting to read a paired low surrogate char
+          if (c == -1) {
+            return true;
+          } else {
+            zzBuffer[zzEndRead++] = (char)c;
+          }
+        }
+      }
+      /* potentially more input available */
+      return false;
+    }
+
+    /* numRead < 0 ==> end of stream */
+    return true;
+  }
+
+
+  /**
+   * Closes the input reader.
+   *
+   * @throws java.io.IOException if the reader could not be closed.
+   */
+  public final void yyclose() throws java.io.IOException {
+    zzAtEOF = true; // indicate end of file
+    zzEndRead = zzStartRead; // invalidate buffer
+
+    if (zzReader != null) {
+      zzReader.close();
+    }
+  }
+
+
+  /**
+   * Resets the scanner to read from a new input stream.
+   *
+   * <p>Does not close the old reader.
+   *
+   * <p>All internal variables are reset, the old input stream <b>cannot</b> be reused (internal
+   * buffer is discarded and lost). Lexical state is set to {@code ZZ_INITIAL}.
+   *
+   * <p>Internal scan buffer is resized down to its initial length, if it has grown.
+   *
+   * @param reader The new input stream.
+   */
+  public final void yyreset(java.io.Reader reader) {
+    zzReader = reader;
+    zzEOFDone = false;
+    yyResetPosition();
+    zzLexicalState = YYINITIAL;
+    int initBufferSize = Math.min(ZZ_BUFFERSIZE, zzMaxBufferLen());
+    if (zzBuffer.length > initBufferSize) {
+      zzBuffer = new char[initBufferSize];
+    }
+  }
+
+  /**
+   * Resets the input position.
+   */
+  private final void yyResetPosition() {
+      zzAtBOL  = true;
+      zzAtEOF  = false;
+      zzCurrentPos = 0;
+      zzMarkedPos = 0;
+      zzStartRead = 0;
+      zzEndRead = 0;
+      zzFinalHighSurrogate = 0;
+      yyline = 0;
+      yycolumn = 0;
+      yychar = 0L;
+  }
+
+
+  /**
+   * Returns whether the scanner has reached the end of the reader it reads from.
+   *
+   * @return whether the scanner has reached EOF.
+   */
+  public final boolean yyatEOF() {
+    return zzAtEOF;
+  }
+
+
+  /**
+   * Returns the current lexical state.
+   *
+   * @return the current lexical state.
+   */
+  public final int yystate() {
+    return zzLexicalState;
+  }
+
+
+  /**
+   * Enters a new lexical state.
+   *
+   * @param newState the new lexical state
+   */
+  public final void yybegin(int newState) {
+    zzLexicalState = newState;
+  }
+
+
+  /**
+   * Returns the text matched by the current regular expression.
+   *
+   * @return the matched text.
+   */
+  public final String yytext() {
+    return new String(zzBuffer, zzStartRead, zzMarkedPos-zzStartRead);
+  }
+
+
+  /**
+   * Returns the character at the given position from the matched text.
+   *
+   * <p>It is equivalent to {@code yytext().charAt(pos)}, but faster.
+   *
+   * @param position the position of the character to fetch. A value from 0 to {@code yylength()-1}.
+   *
+   * @return the character at {@code position}.
+   */
+  public final char yycharat(int position) {
+    return zzBuffer[zzStartRead + position];
+  }
+
+
+  /**
+   * How many characters were matched.
+   *
+   * @return the length of the matched text region.
+   */
+  public final int yylength() {
+    return zzMarkedPos-zzStartRead;
+  }
+
+
+  /**
+   * Reports an error that occurred while scanning.
+   *
+   * <p>In a well-formed scanner (no or only correct usage of {@code yypushback(int)} and a
+   * match-all fallback rule) this method will only be called with things that
+   * "Can't Possibly Happen".
+   *
+   * <p>If this method is called, something is seriously wrong (e.g. a JFlex bug producing a faulty
+   * scanner etc.).
+   *
+   * <p>Usual syntax/scanner level error handling should be done in error fallback rules.
+   *
+   * @param errorCode the code of the error message to display.
+   */
+  private static void zzScanError(int errorCode) {
+    String message;
+    try {
+      message = ZZ_ERROR_MSG[errorCode];
+    } catch (ArrayIndexOutOfBoundsException e) {
+      message = ZZ_ERROR_MSG[ZZ_UNKNOWN_ERROR];
+    }
+
+    throw new Error(message);
+  }
+
+
+  /**
+   * Pushes the specified amount of characters back into the input stream.
+   *
+   * <p>They will be read again by then next call of the scanning method.
+   *
+   * @param number the number of characters to be read again. This number must not be greater than
+   *     {@link #yylength()}.
+   */
+  public void yypushback(int number)  {
+    if ( number > yylength() )
+      zzScanError(ZZ_PUSHBACK_2BIG);
+
+    zzMarkedPos -= number;
+  }
+
+
+
+
+  /**
+   * Resumes scanning until the next regular expression is matched, the end of input is encountered
+   * or an I/O-Error occurs.
+   *
+   * @return the next token.
+   * @exception java.io.IOException if any I/O-Error occurs.
+   */
+  public int yylex() throws java.io.IOException
+  {
+    int zzInput;
+    int zzAction;
+
+    // cached fields:
+    int zzCurrentPosL;
+    int zzMarkedPosL;
+    int zzEndReadL = zzEndRead;
+    char[] zzBufferL = zzBuffer;
+
+    int [] zzTransL = ZZ_TRANS;
+    int [] zzRowMapL = ZZ_ROWMAP;
+    int [] zzAttrL = ZZ_ATTRIBUTE;
+
+    while (true) {
+      zzMarkedPosL = zzMarkedPos;
+
+      yychar+= zzMarkedPosL-zzStartRead;
+
+      zzAction = -1;
+
+      zzCurrentPosL = zzCurrentPos = zzStartRead = zzMarkedPosL;
+
+      zzState = ZZ_LEXSTATE[zzLexicalState];
+
+      // set up zzAction for empty match case:
+      int zzAttributes = zzAttrL[zzState];
+      if ( (zzAttributes & 1) == 1 ) {
+        zzAction = zzState;
+      }
+
+
+      zzForAction: {
+        while (true) {
+
+          if (zzCurrentPosL < zzEndReadL) {
+            zzInput = Character.codePointAt(zzBufferL, zzCurrentPosL, zzEndReadL);
+            zzCurrentPosL += Character.charCount(zzInput);
+          }
+          else if (zzAtEOF) {
+            zzInput = YYEOF;
+            break zzForAction;
+          }
+          else {
+            // store back cached positions
+            zzCurrentPos  = zzCurrentPosL;
+            zzMarkedPos   = zzMarkedPosL;
+            boolean eof = zzRefill();
+            // get translated positions and possibly new buffer
+            zzCurrentPosL  = zzCurrentPos;
+            zzMarkedPosL   = zzMarkedPos;
+            zzBufferL      = zzBuffer;
+            zzEndReadL     = zzEndRead;
+            if (eof) {
+              zzInput = YYEOF;
+              break zzForAction;
+            }
+            else {
+              zzInput = Character.codePointAt(zzBufferL, zzCurrentPosL, zzEndReadL);
+              zzCurrentPosL += Character.charCount(zzInput);
+            }
+          }
+          int zzNext = zzTransL[ zzRowMapL[zzState] + zzCMap(zzInput) ];
+          if (zzNext == -1) break zzForAction;
+          zzState = zzNext;
+
+          zzAttributes = zzAttrL[zzState];
+          if ( (zzAttributes & 1) == 1 ) {
+            zzAction = zzState;
+            zzMarkedPosL = zzCurrentPosL;
+            if ( (zzAttributes & 8) == 8 ) break zzForAction;
+          }
+
+        }
+      }
+
+      // store back cached position
+      zzMarkedPos = zzMarkedPosL;
+
+      if (zzInput == YYEOF && zzStartRead == zzCurrentPos) {
+        zzAtEOF = true;
+        return YYEOF;
+      }
+      else {
+        switch (zzAction < 0 ? zzAction : ZZ_ACTION[zzAction]) {
+          case 1:
+            { return code(TokenType.ERROR);
+            }
+          // fall through
+          case 17: break;
+          case 2:
+            { skipped();
+            }
+          // fall through
+          case 18: break;
+          case 3:
+            { return code(TokenType.OPERATOR_LOGICAL);
+            }
+          // fall through
+          case 19: break;
+          case 4:
+            { return code(TokenType.OPERATOR_ARITHMETIC);
+            }
+          // fall through
+          case 20: break;
+          case 5:
+            { return code(TokenType.PUNCTUATOR);
+            }
+          // fall through
+          case 21: break;
+          case 6:
+            { return code(TokenType.INTEGER_LITERAL);
+            }
+          // fall through
+          case 22: break;
+          case 7:
+            { return code(TokenType.OPERATOR_RELATIONAL);
+            }
+          // fall through
+          case 23: break;
+          case 8:
+            { return code(TokenType.OPERATOR_ASSIGNMENT);
+            }
+          // fall through
+          case 24: break;
+          case 9:
+            { return code(TokenType.IDENTIFIER);
+            }
+          // fall through
+          case 25: break;
+          case 10:
+            { return code(TokenType.STRING_LITERAL);
+            }
+          // fall through
+          case 26: break;
+          case 11:
+            { comment(false);
+            }
+          // fall through
+          case 27: break;
+          case 12:
+            { return code(TokenType.OPERATOR_INC_DEC);
+            }
+          // fall through
+          case 28: break;
+          case 13:
+            { return code(TokenType.CHAR_LITERAL);
+            }
+          // fall through
+          case 29: break;
+          case 14:
+            { return code(TokenType.FLOAT_LITERAL);
+            }
+          // fall through
+          case 30: break;
+          case 15:
+            { return code(TokenType.KEYWORD);
+            }
+          // fall through
+          case 31: break;
+          case 16:
+            { return code(TokenType.BOOLEAN_LITERAL);
+            }
+          // fall through
+          case 32: break;
+          default:
+            zzScanError(ZZ_NO_MATCH);
+        }
+      }
+    }
+  }
+
+
+}